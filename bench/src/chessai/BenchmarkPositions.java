@@ -0,0 +1,69 @@
+package chessai;
+
+/**
+ * The fixed positions the benchmarks run on<br>
+ * ChessBoard has no way to be set up from a FEN string, so each position
+ * is reached by playing its moves from the start.
+ * @author Jed Wang
+ */
+public class BenchmarkPositions {
+    /**
+     * The names of the positions, as given to the benchmarks' position parameter
+     */
+    public static final String START = "start", OPENING = "opening", MIDDLEGAME = "middlegame";
+
+    /**
+     * The moves of the Italian game, reaching the opening position
+     */
+    private static final String[] OPENING_MOVES = {
+        "e2", "e4", "e7", "e5", "g1", "f3", "b8", "c6", "f1", "c4", "g8", "f6", "d2", "d3", "f8", "c5"
+    };
+
+    /**
+     * The moves played after the opening position to reach the middlegame position
+     */
+    private static final String[] MIDDLEGAME_MOVES = {
+        "c2", "c3", "d7", "d6", "b1", "d2", "a7", "a6", "c4", "b3", "c5", "a7",
+        "h2", "h3", "h7", "h6", "d2", "f1", "c8", "e6"
+    };
+
+    /**
+     * No instances allowed
+     */
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * Sets up one of the positions
+     * @param name which position: START, OPENING or MIDDLEGAME
+     * @return a new ChessBoard with that position
+     */
+    public static ChessBoard create(String name) {
+        ChessBoard cb = new ChessBoard();
+        switch(name) {
+            case MIDDLEGAME:
+                play(cb, OPENING_MOVES);
+                play(cb, MIDDLEGAME_MOVES);
+                break;
+            case OPENING:
+                play(cb, OPENING_MOVES);
+                break;
+            case START:
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown position: " + name);
+        }
+        return cb;
+    }
+
+    /**
+     * Plays moves on a board
+     * @param cb the board
+     * @param squares the squares moved from and to, in pairs
+     */
+    private static void play(ChessBoard cb, String[] squares) {
+        for(int i = 0; i < squares.length; i += 2) {
+            cb.movePiece(squares[i], squares[i + 1]);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package chessai;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks of the ChessBoard operations the engine leans on<br>
+ * <br>
+ * The benchmarks live in their own source root, bench/src, so that the
+ * engine itself does not depend on JMH. bench/pom.xml compiles both source
+ * roots with jmh-core and jmh-generator-annprocess (the annotation processor
+ * writes the harness) into a self-contained jar whose main class is
+ * org.openjdk.jmh.Main. From the repository root:<br>
+ * <pre>
+ * mvn -f bench/pom.xml package
+ * java -jar bench/target/benchmarks.jar [pattern]
+ * </pre>
+ * where the optional pattern is a regular expression over benchmark names,
+ * e.g. {@code BoardBenchmark} or {@code SearchBenchmark}.
+ * @author Jed Wang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    /**
+     * Which of the BenchmarkPositions to run on
+     */
+    @Param({BenchmarkPositions.START, BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME})
+    public String position;
+
+    /**
+     * The position
+     */
+    private ChessBoard board;
+
+    /**
+     * The position after the first legal move
+     */
+    private ChessBoard after;
+
+    /**
+     * From where and to where the first legal move goes
+     */
+    private String fromWhere, toWhere;
+
+    /**
+     * The squares of the pieces of the player to move
+     */
+    private String[] squares;
+
+    /**
+     * Sets up the position
+     */
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.create(position);
+        int move = board.getLegalMove(0);
+        fromWhere = BitBoard.toSquare(Move.from(move));
+        toWhere = BitBoard.toSquare(Move.to(move));
+        after = new ChessBoard(board);
+        after.playMove(move);
+        ArrayList<String> own = new ArrayList<>();
+        for(int i = 0; i < 64; i++) {
+            String square = BitBoard.toSquare(i);
+            AbstractPiece ap = board.getPiece(square);
+            if(ap != null && ap.isWhite == board.currentPlayer()) own.add(square);
+        }
+        squares = own.toArray(new String[0]);
+    }
+
+    /**
+     * Generates every legal move of the position again
+     * @return how many legal moves there are
+     */
+    @Benchmark
+    public int recalculateMoves() {
+        board.recalculateMoves();
+        return board.numOfLegalMoves();
+    }
+
+    /**
+     * Determines whether either side is in check
+     * @param bh takes the results
+     */
+    @Benchmark
+    public void inCheck(Blackhole bh) {
+        bh.consume(board.inCheck(true));
+        bh.consume(board.inCheck(false));
+    }
+
+    /**
+     * Finds the legal moves of every piece of the player to move, one piece at a time
+     * @param bh takes the results
+     */
+    @Benchmark
+    public void legalMoves(Blackhole bh) {
+        for(String square : squares) {
+            bh.consume(board.getPiece(square).legalMoves(board, square));
+        }
+    }
+
+    /**
+     * Writes the position as a short FEN string
+     * @return the string
+     */
+    @Benchmark
+    public String miniFEN() {
+        return board.miniFEN();
+    }
+
+    /**
+     * Copies the position
+     * @return the copy
+     */
+    @Benchmark
+    public ChessBoard copy() {
+        return new ChessBoard(board);
+    }
+
+    /**
+     * Notes a move in a new MoveRecorder, which includes making the recorder
+     * @return the recorder
+     */
+    @Benchmark
+    public MoveRecorder moved() {
+        MoveRecorder mr = new MoveRecorder();
+        mr.moved(board, after, fromWhere, toWhere);
+        return mr;
+    }
+}
@@ -0,0 +1,76 @@
+package chessai;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of one iteration of the Monte Carlo tree search<br>
+ * Each measurement iteration starts a new tree, reusing one NodePool,
+ * so the tree grows over the iteration as it would in a real search.
+ * Built and run as described in BoardBenchmark.
+ * @author Jed Wang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    /**
+     * Which of the BenchmarkPositions to run on
+     */
+    @Param({BenchmarkPositions.START, BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME})
+    public String position;
+
+    /**
+     * The position
+     */
+    private ChessBoard board;
+
+    /**
+     * Where the trees are stored, big enough for a whole iteration
+     */
+    private final NodePool pool = new NodePool(1 << 22);
+
+    /**
+     * The root of the tree searched
+     */
+    private TreeNode root;
+
+    /**
+     * Sets up the position
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = BenchmarkPositions.create(position);
+    }
+
+    /**
+     * Starts a new tree
+     */
+    @Setup(Level.Iteration)
+    public void newTree() {
+        root = new TreeNode(board, pool);
+    }
+
+    /**
+     * Runs one iteration of the search: selection, expansion, simulation and backup
+     * @return how many nodes were added to the tree
+     */
+    @Benchmark
+    public int selectAction() {
+        return root.selectAction();
+    }
+}
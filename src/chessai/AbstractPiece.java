@@ -64,23 +64,39 @@ public abstract class AbstractPiece {
      * @return the legal moves this piece can make
      */
     public LinkedList<String> legalMoves(ChessBoard cb, String currentPosition) {
-        LinkedList<String> allLegal = allLegalMoves(cb, currentPosition);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        // only the side to move has pins worked out for it, the other side tries its moves out
+        boolean toMove = isWhite == cb.currentPlayer();
+        int n = (toMove)?cb.generateLegalMoves(currentPosition, moves):cb.generateMoves(currentPosition, moves);
         LinkedList<String> output = new LinkedList<>();
-        AbstractPiece[][] initLayout = new AbstractPiece[cb.getBoard().length][cb.getBoard()[0].length];
-        for(int i = 0; i < cb.getBoard().length; i++) {
-            for(int j = 0; j < cb.getBoard()[i].length; j++) {
-                initLayout[i][j] = cb.getBoard()[i][j];
+        for(int i = 0; i < n; i++) {
+            // promotions are listed once, as a square
+            int promotion = Move.promotion(moves[i]);
+            if((promotion == 0 || promotion == MoveRecorder.QUEEN) 
+                    && (toMove || cb.getBitBoard().isLegal(moves[i]))) {
+                output.add(BitBoard.toSquare(Move.to(moves[i])));
             }
         }
-        for(String square:allLegal) {
-            cb.maybeMove(currentPosition, square);
-            if(getCharRepresentation().equals("P") && 
-                    (ChessBoard.getRow(square) == 0 
-                    || ChessBoard.getRow(square) == 8)) 
-                cb.placePiece(new Queen(isWhite), square);
-            if(!cb.inCheck(isWhite)) output.add(square);
-            cb.setBoard(initLayout);
-            if(getCharRepresentation().equals("K")) cb.resetKingPos(isWhite);
+        return output;
+    }
+    
+    /**
+     * Returns the squares MoveGenerator says this piece can move to<br>
+     * However, this method does not check for checks
+     * @param cb the current state of the chess game
+     * @param currentPosition the current place of the piece
+     * @return all legal moves, not counting checks
+     */
+    protected LinkedList<String> generatedMoves(ChessBoard cb, String currentPosition) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = cb.generateMoves(currentPosition, moves);
+        LinkedList<String> output = new LinkedList<>();
+        for(int i = 0; i < n; i++) {
+            // promotions are listed once, as a square
+            int promotion = Move.promotion(moves[i]);
+            if(promotion == 0 || promotion == MoveRecorder.QUEEN) {
+                output.add(BitBoard.toSquare(Move.to(moves[i])));
+            }
         }
         return output;
     }
@@ -187,4 +203,10 @@ public abstract class AbstractPiece {
      * @return the character that represents this piece
      */
     public abstract String getCharRepresentation();
+    
+    /**
+     * Returns which piece this is, as in MoveRecorder
+     * @return which piece this is
+     */
+    public abstract int getType();
 }
\ No newline at end of file
@@ -0,0 +1,506 @@
+package chessai;
+
+import java.util.Arrays;
+
+/**
+ * Searches a position with negamax alpha-beta and iterative deepening<br>
+ * <br>
+ * Each iteration searches one half move deeper than the last, until a limit
+ * runs out; an iteration cut short is thrown away, so the move played is
+ * always that of the deepest iteration finished. The principal variation of
+ * one iteration is searched first by the next, and every move after the first
+ * is searched with a null window, which is only widened again if the move turns
+ * out better (principal variation search). At the horizon, captures and
+ * promotions are searched until the position is quiet.<br>
+ * <br>
+ * Moves are searched in the order: the principal variation, captures and
+ * promotions by MVV-LVA as in MoveOrdering, the two killer moves of the ply,
+ * and then quiet moves by the history heuristic. Scores are in centipawns from
+ * the side to move's point of view, as given by Evaluator. A search runs on
+ * one thread, and allocates nothing once the engine is made.
+ * @author Jed Wang
+ */
+public class AlphaBetaSearch implements SearchEngine {
+    /**
+     * The most half moves a line can be searched to, quiescence included
+     */
+    public static final int MAX_PLY = 64;
+
+    /**
+     * The deepest iteration searched
+     */
+    public static final int MAX_DEPTH = MAX_PLY / 2;
+
+    /**
+     * The most positions of the game before the root looked at for repetitions<br>
+     * Any older are before the last capture or pawn move, or the game is drawn by the fifty move rule
+     */
+    private static final int HISTORY = 100;
+
+    /**
+     * The score of checkmating at the root; a mate n half moves away scores MATE - n
+     */
+    public static final int MATE = 100000;
+
+    /**
+     * More than any score
+     */
+    private static final int INFINITY = MATE + 1;
+
+    /**
+     * How many nodes are searched between looks at the clock
+     */
+    private static final int CHECK_INTERVAL = 2048;
+
+    /**
+     * The score of the first killer move, below every capture and promotion
+     */
+    private static final int KILLER_SCORE = MoveOrdering.CAPTURE_SCORE - 1;
+
+    /**
+     * How high a history score may grow before every history score is halved,
+     * which keeps quiet moves below the killer moves
+     */
+    private static final int HISTORY_MAX = 1 << 16;
+
+    /**
+     * The position searched
+     */
+    private ChessBoard board;
+
+    /**
+     * How long a search may take, in milliseconds
+     */
+    private long timeLimit = UNLIMITED;
+
+    /**
+     * How many nodes a search may visit
+     */
+    private long nodeLimit = UNLIMITED;
+
+    /**
+     * The deepest iteration a search may start, 0 for MAX_DEPTH
+     */
+    private int depthLimit = 0;
+
+    /**
+     * Set to stop the search early
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * Whether the current iteration was cut short
+     */
+    private boolean aborted;
+
+    /**
+     * The counters of the current search, or of the last one
+     */
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    /**
+     * The board the moves are played on
+     */
+    private final BitBoard bb = new BitBoard();
+
+    /**
+     * When the search must stop, from System.nanoTime(), or UNLIMITED
+     */
+    private long deadline;
+
+    /**
+     * How many nodes the search has visited
+     */
+    private long nodes;
+
+    /**
+     * How many of the nodes have been recorded in the metrics
+     */
+    private long reported;
+
+    /**
+     * When the clock is next looked at, in nodes
+     */
+    private long nextCheck;
+
+    /**
+     * The buffer the moves of each ply are generated into
+     */
+    private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    /**
+     * The scores the moves of each ply are sorted by
+     */
+    private final int[][] scores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    /**
+     * The hash of each position of the game up to the root, then of each ply of the line searched,
+     * to find repetitions
+     */
+    private final long[] hashes = new long[HISTORY + MAX_PLY];
+
+    /**
+     * Where in hashes the root is
+     */
+    private int root;
+
+    /**
+     * The two quiet moves of each ply which last caused a cutoff
+     */
+    private final int[][] killers = new int[MAX_PLY][2];
+
+    /**
+     * How often each quiet move caused a cutoff, weighted by depth,
+     * indexed by the side moving and the squares
+     */
+    private final int[] history = new int[2 << 12];
+
+    /**
+     * The best line found from each ply, in a triangle: line i starts at pv[i][i]
+     */
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+
+    /**
+     * Where the best line found from each ply ends
+     */
+    private final int[] pvLength = new int[MAX_PLY];
+
+    /**
+     * The best line of the last iteration finished
+     */
+    private final int[] lastPv = new int[MAX_PLY];
+
+    /**
+     * How long the best line of the last iteration finished is
+     */
+    private int lastPvLength;
+
+    /**
+     * Whether the line searched is still the best line of the last iteration
+     */
+    private boolean followPv;
+
+    /**
+     * Creates an engine searching a position
+     * @param cb the position to search
+     */
+    public AlphaBetaSearch(ChessBoard cb) {
+        board = cb;
+    }
+
+    @Override
+    public AlphaBetaSearch setTimeLimit(long millis) {
+        if(millis <= 0) throw new IllegalArgumentException("Invalid time limit: " + millis);
+        timeLimit = millis;
+        return this;
+    }
+
+    @Override
+    public AlphaBetaSearch setNodeLimit(long nodes) {
+        if(nodes <= 0) throw new IllegalArgumentException("Invalid node limit: " + nodes);
+        nodeLimit = nodes;
+        return this;
+    }
+
+    /**
+     * Sets the deepest iteration a search may start
+     * @param depth the depth in half moves, from 1 to MAX_DEPTH
+     * @return this AlphaBetaSearch
+     */
+    public AlphaBetaSearch setDepthLimit(int depth) {
+        if(depth <= 0 || depth > MAX_DEPTH) throw new IllegalArgumentException("Invalid depth limit: " + depth);
+        depthLimit = depth;
+        return this;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void play(int move) {
+        int i = board.indexOfLegalMove(move);
+        if(i < 0) throw new IllegalArgumentException("Illegal move: " + Move.toString(move));
+        ChessBoard next = new ChessBoard(board);
+        next.playMove(board.getLegalMove(i));
+        board = next;
+    }
+
+    @Override
+    public ChessBoard getBoard() {
+        return board;
+    }
+
+    @Override
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Searches deeper and deeper until a limit runs out or stop() is called<br>
+     * The value of the result is the score of the deepest iteration finished,
+     * mapped by Evaluator.toValue() onto white's side
+     * @return the first move of the best line, and how the search went
+     */
+    @Override
+    public SearchResult search() {
+        if(timeLimit == UNLIMITED && nodeLimit == UNLIMITED && depthLimit == 0)
+            throw new IllegalStateException("No limit set");
+        stopped = false;
+        aborted = false;
+        metrics.start();
+        long start = System.nanoTime();
+        deadline = (timeLimit == UNLIMITED)?UNLIMITED:start + timeLimit * 1000000L;
+        nodes = reported = 0;
+        nextCheck = CHECK_INTERVAL;
+        bb.copyFrom(board.getBitBoard());
+        root = Math.max(0, board.getHistory(hashes, Math.min(bb.getHalfmoveClock(), HISTORY) + 1) - 1);
+        for(int[] k : killers) {
+            Arrays.fill(k, Move.NONE);
+        }
+        ageHistory();
+        lastPvLength = 0;
+
+        int maxDepth = (depthLimit == 0)?MAX_DEPTH:depthLimit;
+        int best = Move.NONE, score = 0, completed = 0;
+        for(int depth = 1; depth <= maxDepth; depth++) {
+            followPv = true;
+            int s = search(depth, 0, -INFINITY, INFINITY);
+            if(aborted) break;
+            completed = depth;
+            score = s;
+            metrics.recordDepth(depth);
+            // no legal moves at the root
+            if(pvLength[0] == 0) break;
+            best = pv[0][0];
+            lastPvLength = pvLength[0];
+            System.arraycopy(pv[0], 0, lastPv, 0, lastPvLength);
+            // a mate within the horizon will not be found any quicker
+            if(MATE - Math.abs(score) <= depth) break;
+        }
+        if(best == Move.NONE && aborted) best = firstMove();
+        metrics.recordNodes(nodes - reported);
+        metrics.finish();
+        long elapsed = (System.nanoTime() - start) / 1000000L;
+        int white = (bb.isWhiteToMove())?score:-score;
+        return new SearchResult(best, (best == Move.NONE)?-1:board.indexOfLegalMove(best), 0,
+                Evaluator.toValue(white), 0, nodes, completed, elapsed);
+    }
+
+    /**
+     * Searches a position to a depth
+     * @param depth how many more half moves to search before the quiescence search
+     * @param ply how many half moves below the root the position is
+     * @param alpha the score the side to move is already sure of
+     * @param beta the score the other side is already sure of
+     * @return the score, from the side to move's point of view
+     */
+    private int search(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        hashes[root + ply] = bb.getHash();
+        if(ply > 0 && (bb.getHalfmoveClock() >= 100 || bb.insufficientMaterial() || isRepetition(ply))) return 0;
+        boolean inCheck = bb.inCheck(bb.isWhiteToMove());
+        // a check is searched one half move deeper, so that it is never cut off at the horizon
+        if(inCheck) depth++;
+        if(depth <= 0) return quiesce(ply, alpha, beta);
+        if(countNode()) return 0;
+        if(ply >= MAX_PLY - 1) return evaluate();
+
+        int[] buffer = moves[ply];
+        int n = MoveGenerator.generateLegal(bb, buffer, 0);
+        if(n == 0) return (inCheck)?-MATE + ply:0;
+        int pvMove = Move.NONE;
+        if(followPv) {
+            if(ply < lastPvLength) pvMove = lastPv[ply];
+            else followPv = false;
+        }
+        order(ply, n, pvMove);
+
+        int best = -INFINITY;
+        for(int i = 0; i < n; i++) {
+            int move = buffer[i];
+            bb.makeMove(move);
+            int score;
+            if(i == 0) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if(score > alpha && score < beta) score = -search(depth - 1, ply + 1, -beta, -alpha);
+            }
+            bb.unmakeMove();
+            if(aborted) return 0;
+            // only the first move can lie on the last best line
+            followPv = false;
+            if(score > best) best = score;
+            if(score > alpha) {
+                alpha = score;
+                pv[ply][ply] = move;
+                System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                pvLength[ply] = pvLength[ply + 1];
+                if(alpha >= beta) {
+                    if(!Move.isCapture(move) && !Move.isPromotion(move)) remember(ply, move, depth);
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Searches only captures and promotions, until the position is quiet<br>
+     * The side to move may stand pat, taking the static evaluation instead
+     * @param ply how many half moves below the root the position is
+     * @param alpha the score the side to move is already sure of
+     * @param beta the score the other side is already sure of
+     * @return the score, from the side to move's point of view
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if(countNode()) return 0;
+        int best = evaluate();
+        if(ply >= MAX_PLY - 1 || best >= beta) return best;
+        if(best > alpha) alpha = best;
+
+        int[] buffer = moves[ply], score = scores[ply];
+        int n = MoveGenerator.generateLegal(bb, buffer, 0);
+        if(n == 0) return (bb.inCheck(bb.isWhiteToMove()))?-MATE + ply:0;
+        // there is no capture generator, so the quiet moves are dropped here
+        int captures = 0;
+        for(int i = 0; i < n; i++) {
+            int move = buffer[i];
+            if(Move.isCapture(move) || Move.isPromotion(move)) {
+                buffer[captures] = move;
+                score[captures++] = MoveOrdering.score(bb, move);
+            }
+        }
+        MoveOrdering.sort(buffer, score, 0, captures);
+
+        for(int i = 0; i < captures; i++) {
+            bb.makeMove(buffer[i]);
+            int s = -quiesce(ply + 1, -beta, -alpha);
+            bb.unmakeMove();
+            if(aborted) return 0;
+            if(s > best) best = s;
+            if(s > alpha) {
+                alpha = s;
+                if(alpha >= beta) break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores the moves of a ply and sorts them, best first
+     * @param ply the ply
+     * @param n how many moves there are
+     * @param pvMove the move on the last best line, or Move.NONE
+     */
+    private void order(int ply, int n, int pvMove) {
+        int[] buffer = moves[ply], score = scores[ply];
+        int side = (bb.isWhiteToMove())?0:1;
+        for(int i = 0; i < n; i++) {
+            int move = buffer[i];
+            if(move == pvMove) {
+                score[i] = Integer.MAX_VALUE;
+            } else if(Move.isCapture(move) || Move.isPromotion(move)) {
+                score[i] = MoveOrdering.score(bb, move);
+            } else if(move == killers[ply][0]) {
+                score[i] = KILLER_SCORE;
+            } else if(move == killers[ply][1]) {
+                score[i] = KILLER_SCORE - 1;
+            } else {
+                score[i] = history[historyKey(side, move)];
+            }
+        }
+        MoveOrdering.sort(buffer, score, 0, n);
+    }
+
+    /**
+     * Remembers a quiet move which caused a cutoff, as a killer move and in the history
+     * @param ply the ply the move was played at
+     * @param move the move
+     * @param depth how deep the move was searched
+     */
+    private void remember(int ply, int move, int depth) {
+        if(killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int key = historyKey((bb.isWhiteToMove())?0:1, move);
+        history[key] += depth * depth;
+        if(history[key] > HISTORY_MAX) ageHistory();
+    }
+
+    /**
+     * Halves every history score, so that recent cutoffs count for more
+     */
+    private void ageHistory() {
+        for(int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Returns where a quiet move is counted in the history
+     * @param side 0 for white, 1 for black
+     * @param move the move, encoded as in Move
+     * @return the index into history
+     */
+    private static int historyKey(int side, int move) {
+        return side << 12 | Move.to(move) << 6 | Move.from(move);
+    }
+
+    /**
+     * Determines whether the position at a ply was reached before on the line searched,
+     * or in the game before the root<br>
+     * Only positions since the last capture or pawn move can repeat
+     * @param ply the ply
+     * @return whether the position is a repetition, which is scored as a draw
+     */
+    private boolean isRepetition(int ply) {
+        int index = root + ply;
+        long hash = hashes[index];
+        int oldest = Math.max(0, index - bb.getHalfmoveClock());
+        for(int i = index - 4; i >= oldest; i -= 2) {
+            if(hashes[i] == hash) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates the position statically
+     * @return the score, from the side to move's point of view
+     */
+    private int evaluate() {
+        int score = Evaluator.evaluate(bb);
+        return (bb.isWhiteToMove())?score:-score;
+    }
+
+    /**
+     * Counts a node, and every CHECK_INTERVAL nodes looks at the clock
+     * @return whether the search must stop
+     */
+    private boolean countNode() {
+        if(++nodes >= nextCheck) {
+            nextCheck = nodes + CHECK_INTERVAL;
+            metrics.recordNodes(nodes - reported);
+            reported = nodes;
+            if(stopped || (deadline != UNLIMITED && System.nanoTime() - deadline >= 0)) aborted = true;
+        }
+        if(nodes >= nodeLimit) aborted = true;
+        return aborted;
+    }
+
+    /**
+     * Picks a move without searching, for when not even the first iteration finished
+     * @return the move MoveOrdering puts first, or Move.NONE if there are no legal moves
+     */
+    private int firstMove() {
+        bb.copyFrom(board.getBitBoard());
+        int n = MoveGenerator.generateLegal(bb, moves[0], 0);
+        if(n == 0) return Move.NONE;
+        MoveOrdering.sort(bb, moves[0], scores[0], 0, n);
+        return moves[0][0];
+    }
+}
\ No newline at end of file
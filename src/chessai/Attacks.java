@@ -0,0 +1,444 @@
+package chessai;
+
+import java.util.Random;
+
+/**
+ * Precomputed attack sets, for use with BitBoard<br>
+ * Sliding pieces use magic bitboards: the pieces blocking a slider are
+ * multiplied by a magic number, which hashes them perfectly into a table
+ * of attack sets built when this class is loaded.
+ * @author Jed Wang
+ */
+public class Attacks {
+    /**
+     * The A file
+     */
+    public static final long FILE_A = 0x0101010101010101L;
+
+    /**
+     * The H file
+     */
+    public static final long FILE_H = FILE_A << 7;
+
+    /**
+     * The ABSOLUTE row 0, i.e. the eighth rank
+     */
+    public static final long ROW_0 = 0xFFL;
+
+    /**
+     * The ABSOLUTE row 7, i.e. the first rank
+     */
+    public static final long ROW_7 = ROW_0 << 56;
+
+    /**
+     * The squares a knight attacks from each square
+     */
+    private static final long[] KNIGHT = new long[64];
+
+    /**
+     * The squares a king attacks from each square
+     */
+    private static final long[] KING = new long[64];
+
+    /**
+     * The squares a white pawn attacks from each square
+     */
+    private static final long[] WHITE_PAWN = new long[64];
+
+    /**
+     * The squares a black pawn attacks from each square
+     */
+    private static final long[] BLACK_PAWN = new long[64];
+
+    /**
+     * The squares whose occupancy matters to a rook on each square
+     */
+    private static final long[] ROOK_MASK = new long[64];
+
+    /**
+     * The squares whose occupancy matters to a bishop on each square
+     */
+    private static final long[] BISHOP_MASK = new long[64];
+
+    /**
+     * The magic number of a rook on each square<br>
+     * Found ahead of time with findMagic, since searching takes about a second
+     */
+    private static final long[] ROOK_MAGIC = {
+        0x0080008420144000L, 0x0140001000402000L, 0x8100200100081040L,
+        0x0580100181040800L, 0x0480040002480180L, 0x020002001004C108L,
+        0x06002600180104ACL, 0x0A00010200804024L, 0x1102800320814002L,
+        0xC000808040002000L, 0x0202802000821000L, 0x4210800800801000L,
+        0x8008808044004800L, 0x0006002418100200L, 0x0A00800200010080L,
+        0x0202000208804114L, 0x0280044002200041L, 0x3010004020004008L,
+        0x0010002008040022L, 0x8000210008100102L, 0x60A2020004110820L,
+        0x0222008080040002L, 0x00C0840002085110L, 0x02004A0000810454L,
+        0x0080401080008020L, 0x0040200040100048L, 0x0006041200208040L,
+        0x2010100100210008L, 0x5090080080800400L, 0x0022002200042950L,
+        0x011010040002E108L, 0x0000240200009041L, 0x0010400020800080L,
+        0x0040401000402000L, 0x0200200080801000L, 0x4140080080801003L,
+        0x0000800400800800L, 0x0800040080800200L, 0x1008080284002110L,
+        0x00A001008A001444L, 0x3040002040908000L, 0x1000422010024000L,
+        0x0040402001010010L, 0x8000100008008080L, 0x0084008008028004L,
+        0x0002000204008080L, 0x0000088210040001L, 0x0280C12080520004L,
+        0x028700800C402B00L, 0x0180200040008080L, 0x80A0008020100080L,
+        0x0001012010008900L, 0x4000040108008180L, 0x000C000402008080L,
+        0x004B0002002C0900L, 0x0020D42040811200L, 0x8844520121004082L,
+        0x1109150082204001L, 0x0302000820408012L, 0x2081002208041001L,
+        0x0002000804201002L, 0x5101000A28040029L, 0x0100080112489004L,
+        0x02000E4400288102L
+    };
+
+    /**
+     * The magic number of a bishop on each square<br>
+     * Found ahead of time with findMagic, since searching takes about a second
+     */
+    private static final long[] BISHOP_MAGIC = {
+        0x4014281015002108L, 0x0060020882029000L, 0x1104440082102120L,
+        0x4004410020042802L, 0x0011104020140040L, 0x0006074460005020L,
+        0x48208E0820040201L, 0x0202050401042240L, 0x400C401014208AA0L,
+        0x01C020064A424100L, 0x0012304408424000L, 0x21008808510C0004L,
+        0x0020141420000024L, 0x0004009004202009L, 0x4002008410080450L,
+        0x2000088280B82000L, 0x4040002410828602L, 0x08448030810A1410L,
+        0x1010032104008110L, 0x0850810802084244L, 0x0804000202112040L,
+        0x4901008610009420L, 0x31A0402411082800L, 0x8402000107620200L,
+        0x2210311041126208L, 0x0295218018020400L, 0x2092010408104400L,
+        0x0004040000401080L, 0x0020404004010041L, 0x80448A0109080618L,
+        0x008084110A0A0200L, 0x204C00C000A70440L, 0x3010106441114400L,
+        0x0C94115400181000L, 0x1821403000020400L, 0x2000020082480080L,
+        0x2080408020020200L, 0x0020080040068040L, 0x20089D8888190802L,
+        0x000F820044408408L, 0x2084022006089000L, 0x22510101A0401020L,
+        0x40000A0802009408L, 0x140483C010420200L, 0x0449200208811408L,
+        0x0002220042000100L, 0x00281000D0800201L, 0x044200A519010200L,
+        0x0300421050080002L, 0x00C0540401080004L, 0x4801010088040034L,
+        0x8400000210540051L, 0x400400404822002CL, 0x2080070448020000L,
+        0x1B2082100A00A000L, 0x4002021802108000L, 0xC000248800901000L,
+        0x0000024100B01100L, 0x1902103044022100L, 0x0000004404228810L,
+        0x0101000008210100L, 0x0025000820089082L, 0x0008091010008120L,
+        0x9120024202040010L
+    };
+
+    /**
+     * How far to shift the product to get the table index of a rook on each square
+     */
+    private static final int[] ROOK_SHIFT = new int[64];
+
+    /**
+     * How far to shift the product to get the table index of a bishop on each square
+     */
+    private static final int[] BISHOP_SHIFT = new int[64];
+
+    /**
+     * The attack sets of a rook on each square, indexed by magic
+     */
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    /**
+     * The attack sets of a bishop on each square, indexed by magic
+     */
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    /**
+     * The directions a rook slides in
+     */
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    /**
+     * The directions a bishop slides in
+     */
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    /**
+     * The squares strictly between two squares on the same line, or nothing
+     */
+    private static final long[][] BETWEEN = new long[64][64];
+
+    /**
+     * The whole line through two squares, or nothing if they are not on one line
+     */
+    private static final long[][] LINE = new long[64][64];
+
+    /**
+     * The directions a queen slides in
+     */
+    private static final int[][] QUEEN_DIRECTIONS = {
+        {1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+
+    /**
+     * static init
+     */
+    static {
+        for(int sq = 0; sq < 64; sq++) {
+            int col = BitBoard.column(sq), row = BitBoard.row(sq);
+            KNIGHT[sq] = shifts(col, row, new int[][] {
+                {-2, -1}, {-2, 1}, {2, -1}, {2, 1}, {1, -2}, {-1, -2}, {1, 2}, {-1, 2}
+            });
+            KING[sq] = shifts(col, row, new int[][] {
+                {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}
+            });
+            WHITE_PAWN[sq] = shifts(col, row, new int[][] {{-1, -1}, {1, -1}});
+            BLACK_PAWN[sq] = shifts(col, row, new int[][] {{-1, 1}, {1, 1}});
+        }
+        for(int sq = 0; sq < 64; sq++) {
+            for(int[] direction : QUEEN_DIRECTIONS) {
+                long between = 0;
+                long line = ray(sq, 0, direction[0], direction[1]) 
+                        | ray(sq, 0, -direction[0], -direction[1]) | (1L << sq);
+                int col = BitBoard.column(sq) + direction[0], row = BitBoard.row(sq) + direction[1];
+                while(ChessBoard.isValidSquare(col, row)) {
+                    int to = BitBoard.square(col, row);
+                    BETWEEN[sq][to] = between;
+                    LINE[sq][to] = line;
+                    between |= 1L << to;
+                    col += direction[0];
+                    row += direction[1];
+                }
+            }
+        }
+        // a fixed seed, so that every run finds the same magics
+        Random r = new Random(0x5EED);
+        for(int sq = 0; sq < 64; sq++) {
+            ROOK_MASK[sq] = mask(sq, ROOK_DIRECTIONS);
+            ROOK_SHIFT[sq] = 64 - Long.bitCount(ROOK_MASK[sq]);
+            ROOK_TABLE[sq] = new long[1 << Long.bitCount(ROOK_MASK[sq])];
+            if(!fillTable(sq, ROOK_MASK[sq], ROOK_MAGIC[sq], ROOK_DIRECTIONS, ROOK_TABLE[sq])) {
+                ROOK_MAGIC[sq] = findMagic(sq, ROOK_MASK[sq], ROOK_DIRECTIONS, ROOK_TABLE[sq], r);
+            }
+            BISHOP_MASK[sq] = mask(sq, BISHOP_DIRECTIONS);
+            BISHOP_SHIFT[sq] = 64 - Long.bitCount(BISHOP_MASK[sq]);
+            BISHOP_TABLE[sq] = new long[1 << Long.bitCount(BISHOP_MASK[sq])];
+            if(!fillTable(sq, BISHOP_MASK[sq], BISHOP_MAGIC[sq], BISHOP_DIRECTIONS, BISHOP_TABLE[sq])) {
+                BISHOP_MAGIC[sq] = findMagic(sq, BISHOP_MASK[sq], BISHOP_DIRECTIONS, BISHOP_TABLE[sq], r);
+            }
+        }
+    }
+
+    /**
+     * No instances allowed
+     */
+    private Attacks() {
+    }
+
+    /**
+     * Determines all of the squares reached by a set of shifts
+     * @param col the ABSOLUTE column
+     * @param row the ABSOLUTE row
+     * @param shifts the column and row shifts
+     * @return the squares reached
+     */
+    private static long shifts(int col, int row, int[][] shifts) {
+        long output = 0;
+        for(int[] shift : shifts) {
+            if(ChessBoard.isValidShift(col, row, shift[0], shift[1])) {
+                output |= 1L << BitBoard.square(col + shift[0], row + shift[1]);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Returns the squares a knight attacks
+     * @param square the square the knight is on
+     * @return the squares the knight attacks
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * Returns the squares a king attacks
+     * @param square the square the king is on
+     * @return the squares the king attacks
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Returns the squares a pawn attacks
+     * @param square the square the pawn is on
+     * @param isWhite whether the pawn is white
+     * @return the squares the pawn attacks
+     */
+    public static long pawn(int square, boolean isWhite) {
+        return (isWhite)?WHITE_PAWN[square]:BLACK_PAWN[square];
+    }
+
+    /**
+     * Returns the squares a rook attacks
+     * @param square the square the rook is on
+     * @param occupied every occupied square
+     * @return the squares the rook attacks
+     */
+    public static long rook(int square, long occupied) {
+        return ROOK_TABLE[square][(int) (((occupied & ROOK_MASK[square]) 
+                * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+    }
+
+    /**
+     * Returns the squares a bishop attacks
+     * @param square the square the bishop is on
+     * @param occupied every occupied square
+     * @return the squares the bishop attacks
+     */
+    public static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASK[square]) 
+                * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+    }
+
+    /**
+     * Returns the squares a queen attacks
+     * @param square the square the queen is on
+     * @param occupied every occupied square
+     * @return the squares the queen attacks
+     */
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * Returns the squares strictly between two squares
+     * @param from one square
+     * @param to the other square
+     * @return the squares between them, or nothing if they are not on one line
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Returns the whole line through two squares, from edge to edge
+     * @param from one square
+     * @param to the other square
+     * @return the line through them, or nothing if they are not on one line
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    /**
+     * Determines the squares a slider attacks by walking every ray<br>
+     * Only used to fill the magic tables
+     * @param square the square the slider is on
+     * @param occupied every occupied square
+     * @param directions the directions the slider moves in
+     * @return the squares the slider attacks
+     */
+    private static long slide(int square, long occupied, int[][] directions) {
+        long output = 0;
+        for(int[] direction : directions) {
+            output |= ray(square, occupied, direction[0], direction[1]);
+        }
+        return output;
+    }
+
+    /**
+     * Determines the squares whose occupancy can change what a slider attacks<br>
+     * The last square of each ray never blocks anything, so it is left out
+     * @param square the square the slider is on
+     * @param directions the directions the slider moves in
+     * @return the relevant squares
+     */
+    private static long mask(int square, int[][] directions) {
+        long output = 0;
+        for(int[] direction : directions) {
+            int col = BitBoard.column(square) + direction[0], 
+                    row = BitBoard.row(square) + direction[1];
+            while(ChessBoard.isValidSquare(col + direction[0], row + direction[1])) {
+                output |= 1L << BitBoard.square(col, row);
+                col += direction[0];
+                row += direction[1];
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Fills in the attack table of a slider on one square
+     * @param square the square the slider is on
+     * @param mask the relevant squares of the slider
+     * @param magic the magic number to try
+     * @param directions the directions the slider moves in
+     * @param table the attack table to fill
+     * @return whether the magic number hashed every occupancy without a clash
+     */
+    private static boolean fillTable(int square, long mask, long magic, int[][] directions, long[] table) {
+        int bits = Long.bitCount(mask);
+        boolean[] used = new boolean[table.length];
+        // enumerate every subset of the mask
+        long subset = 0;
+        do {
+            long attacks = slide(square, subset, directions);
+            int index = (int) ((subset * magic) >>> (64 - bits));
+            if(!used[index]) {
+                used[index] = true;
+                table[index] = attacks;
+            } else if(table[index] != attacks) {
+                return false;
+            }
+            subset = (subset - mask) & mask;
+        } while(subset != 0);
+        return true;
+    }
+
+    /**
+     * Finds a magic number for a slider on one square by trial and error,
+     * and fills in its attack table
+     * @param square the square the slider is on
+     * @param mask the relevant squares of the slider
+     * @param directions the directions the slider moves in
+     * @param table the attack table to fill
+     * @param r the RNG to draw candidates from
+     * @return the magic number
+     */
+    private static long findMagic(int square, long mask, int[][] directions, long[] table, Random r) {
+        int bits = Long.bitCount(mask), size = 1 << bits;
+        long[] occupancies = new long[size], attacks = new long[size];
+        // enumerate every subset of the mask
+        long subset = 0;
+        for(int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            attacks[i] = slide(square, subset, directions);
+            subset = (subset - mask) & mask;
+        }
+        int[] used = new int[size];
+        for(int attempt = 1; ; attempt++) {
+            // sparse candidates work best
+            long magic = r.nextLong() & r.nextLong() & r.nextLong();
+            if(Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) continue;
+            boolean works = true;
+            for(int i = 0; i < size && works; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if(used[index] != attempt) {
+                    used[index] = attempt;
+                    table[index] = attacks[i];
+                } else if(table[index] != attacks[i]) {
+                    works = false;
+                }
+            }
+            if(works) return magic;
+        }
+    }
+
+    /**
+     * Walks along a ray until it leaves the board or hits a piece
+     * @param square the square the ray starts from
+     * @param occupied every occupied square
+     * @param colShift how much to shift the columns each step
+     * @param rowShift how much to shift the rows each step
+     * @return the squares on the ray, including the piece it hits
+     */
+    private static long ray(int square, long occupied, int colShift, int rowShift) {
+        long output = 0;
+        int col = BitBoard.column(square) + colShift, row = BitBoard.row(square) + rowShift;
+        while(ChessBoard.isValidSquare(col, row)) {
+            long bit = 1L << BitBoard.square(col, row);
+            output |= bit;
+            if((occupied & bit) != 0) break;
+            col += colShift;
+            row += rowShift;
+        }
+        return output;
+    }
+}
@@ -0,0 +1,184 @@
+package chessai;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gathers leaves from many search threads into batches for a LeafEvaluator<br>
+ * <br>
+ * Search threads put their leaves on a queue and wait. One evaluator thread
+ * takes them off in batches of up to the batch size, waiting a little while
+ * for a batch to fill, and evaluates each batch at once, so that the cost of
+ * the evaluator is shared by many leaves. Batches only fill when at least as
+ * many threads search as the batch size; with fewer, every leaf waits out
+ * the whole wait.
+ * @author Jed Wang
+ */
+public class BatchEvaluator implements AutoCloseable {
+    /**
+     * The most leaves evaluated at once when no batch size is given
+     */
+    public static final int DEFAULT_BATCH_SIZE = 16;
+
+    /**
+     * How long to wait for a batch to fill when no time is given, in nanoseconds
+     */
+    public static final long DEFAULT_MAX_WAIT = 100000;
+
+    /**
+     * Evaluates the batches
+     */
+    private final LeafEvaluator evaluator;
+
+    /**
+     * The leaves waiting to be evaluated
+     */
+    private final BlockingQueue<Leaf> queue;
+
+    /**
+     * The batch being evaluated
+     */
+    private final Leaf[] batch;
+
+    /**
+     * How long to wait for a batch to fill, in nanoseconds
+     */
+    private final long maxWait;
+
+    /**
+     * Runs the evaluator
+     */
+    private final Thread thread;
+
+    /**
+     * How many batches and leaves have been evaluated
+     */
+    private final AtomicLong batches = new AtomicLong(), leaves = new AtomicLong();
+
+    /**
+     * Set once the evaluator thread should stop
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a BatchEvaluator with the default batch size and wait, and starts its thread
+     * @param evaluator evaluates the batches
+     */
+    public BatchEvaluator(LeafEvaluator evaluator) {
+        this(evaluator, DEFAULT_BATCH_SIZE, DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * Creates a BatchEvaluator and starts its thread
+     * @param evaluator evaluates the batches
+     * @param batchSize the most leaves evaluated at once
+     * @param maxWait how long to wait for a batch to fill, in nanoseconds
+     */
+    public BatchEvaluator(LeafEvaluator evaluator, int batchSize, long maxWait) {
+        if(batchSize <= 0) throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        if(maxWait < 0) throw new IllegalArgumentException("Invalid wait: " + maxWait);
+        this.evaluator = evaluator;
+        this.maxWait = maxWait;
+        batch = new Leaf[batchSize];
+        // no more leaves can wait than there are search threads, but leave room for many
+        queue = new ArrayBlockingQueue<>(Math.max(batchSize * 4, 256));
+        thread = new Thread(this::run, "leaf-evaluator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Evaluates a leaf, waiting until its batch is done
+     * @param leaf the leaf
+     * @throws IllegalStateException if this BatchEvaluator is closed or the evaluator failed
+     */
+    public void evaluate(Leaf leaf) {
+        if(closed) throw new IllegalStateException("Closed");
+        leaf.prepare();
+        try {
+            queue.put(leaf);
+        } catch(InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", ie);
+        }
+        // closed while putting it on the queue, so it may never be taken off
+        if(closed && queue.remove(leaf)) leaf.finish(new IllegalStateException("Closed"));
+        leaf.await();
+    }
+
+    /**
+     * Takes batches off the queue and evaluates them until closed
+     */
+    private void run() {
+        while(!closed) {
+            int count = 0;
+            try {
+                Leaf first = queue.poll(10, TimeUnit.MILLISECONDS);
+                if(first == null) continue;
+                batch[count++] = first;
+                long deadline = System.nanoTime() + maxWait;
+                while(count < batch.length) {
+                    Leaf next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if(next == null) break;
+                    batch[count++] = next;
+                }
+            } catch(InterruptedException ie) {
+                closed = true;
+            }
+            Throwable error = null;
+            try {
+                if(count > 0) evaluator.evaluate(batch, count);
+            } catch(Throwable t) {
+                // the search threads are told, rather than left waiting
+                error = t;
+            }
+            for(int i = 0; i < count; i++) {
+                batch[i].finish(error);
+                batch[i] = null;
+            }
+            if(count > 0) {
+                batches.incrementAndGet();
+                leaves.addAndGet(count);
+            }
+        }
+        // nobody is left to evaluate what is still waiting
+        for(Leaf leaf; (leaf = queue.poll()) != null; ) {
+            leaf.finish(new IllegalStateException("Closed"));
+        }
+    }
+
+    /**
+     * Returns the most leaves evaluated at once
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batch.length;
+    }
+
+    /**
+     * Returns how many batches have been evaluated
+     * @return how many batches have been evaluated
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Returns how many leaves have been evaluated
+     * @return how many leaves have been evaluated
+     */
+    public long getLeaves() {
+        return leaves.get();
+    }
+
+    /**
+     * Stops the evaluator thread; leaves still waiting fail
+     */
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+    }
+}
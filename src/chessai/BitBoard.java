@@ -0,0 +1,959 @@
+package chessai;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A bitboard representation of a chess position.<br>
+ * <br>
+ * Squares are numbered to match the ABSOLUTE coordinates of ChessBoard:<br>
+ * square = row * 8 + column, so a8 is 0, h8 is 7, a1 is 56 and h1 is 63.<br>
+ * Bit n of every {@code long} stands for square n.
+ * @author Jed Wang
+ */
+public class BitBoard {
+    /**
+     * Represents a white pawn
+     */
+    public static final int WHITE_PAWN = MoveRecorder.PAWN;
+
+    /**
+     * Represents a white king
+     */
+    public static final int WHITE_KING = MoveRecorder.KING;
+
+    /**
+     * Represents a black pawn
+     */
+    public static final int BLACK_PAWN = MoveRecorder.PAWN + 6;
+
+    /**
+     * Represents a black king
+     */
+    public static final int BLACK_KING = MoveRecorder.KING + 6;
+
+    /**
+     * Represents an empty square
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * Represents no square, i.e. no en passant square
+     */
+    public static final int NO_SQUARE = -1;
+
+    /**
+     * White may castle kingside
+     */
+    public static final int WHITE_KINGSIDE = 1;
+
+    /**
+     * White may castle queenside
+     */
+    public static final int WHITE_QUEENSIDE = 2;
+
+    /**
+     * Black may castle kingside
+     */
+    public static final int BLACK_KINGSIDE = 4;
+
+    /**
+     * Black may castle queenside
+     */
+    public static final int BLACK_QUEENSIDE = 8;
+
+    /**
+     * All of the castling rights
+     */
+    public static final int ALL_CASTLING = 15;
+
+    /**
+     * The squares which are white, as in ChessBoard.isSquareWhite
+     */
+    public static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
+
+    /**
+     * The FEN of the starting position
+     */
+    public static final String STARTING_FEN =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * The characters used for each piece, indexed by piece
+     */
+    private static final String PIECE_CHARS = "PNBRQKpnbrqk";
+
+    /**
+     * Which castling rights survive a move touching each square
+     */
+    private static final int[] CASTLING_MASK = new int[64];
+
+    /**
+     * The Zobrist keys of each piece on each square, indexed [piece][square]
+     */
+    private static final long[][] PIECE_KEYS = new long[12][64];
+
+    /**
+     * The Zobrist keys of each combination of castling rights<br>
+     * No castling rights hashes to 0
+     */
+    private static final long[] CASTLING_KEYS = new long[16];
+
+    /**
+     * The Zobrist keys of the en passant square, indexed by column
+     */
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+
+    /**
+     * The Zobrist key hashed in when it is black's turn
+     */
+    private static final long BLACK_TO_MOVE_KEY;
+
+    /**
+     * static init
+     */
+    static {
+        // a fixed seed, so that hashes are the same from run to run
+        Random r = new Random(0x5EED_C4E55L);
+        for(long[] keys : PIECE_KEYS) {
+            for(int i = 0; i < keys.length; i++) {
+                keys[i] = r.nextLong();
+            }
+        }
+        for(int i = 1; i < CASTLING_KEYS.length; i++) {
+            CASTLING_KEYS[i] = r.nextLong();
+        }
+        for(int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+            EN_PASSANT_KEYS[i] = r.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = r.nextLong();
+        for(int i = 0; i < 64; i++) {
+            CASTLING_MASK[i] = ALL_CASTLING;
+        }
+        CASTLING_MASK[square(0, 7)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[square(7, 7)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[square(4, 7)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[square(0, 0)] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[square(7, 0)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[square(4, 0)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    /**
+     * One bitboard for each piece, indexed by piece
+     */
+    private final long[] pieces = new long[12];
+
+    /**
+     * All of the white pieces
+     */
+    private long whitePieces;
+
+    /**
+     * All of the black pieces
+     */
+    private long blackPieces;
+
+    /**
+     * Which piece is on each square, or EMPTY
+     */
+    private final int[] mailbox = new int[64];
+
+    /**
+     * Whether it is white's turn to move
+     */
+    private boolean whiteToMove = true;
+
+    /**
+     * The castling rights, as a combination of the castling flags
+     */
+    private int castling = 0;
+
+    /**
+     * The square open for en passant, or NO_SQUARE
+     */
+    private int enPassant = NO_SQUARE;
+
+    /**
+     * How many half moves have been made since the last capture or pawn move
+     */
+    private int halfmoveClock = 0;
+
+    /**
+     * The number of the current full move, starting from 1
+     */
+    private int fullmoveNumber = 1;
+
+    /**
+     * The Zobrist hash of this position<br>
+     * Kept up to date by every method that changes the position
+     */
+    private long hash = 0;
+
+    /**
+     * The en passant key in the hash, 0 unless a pawn of the side to move can capture en passant
+     */
+    private long enPassantHash = 0;
+
+    /**
+     * The moves that have been made and can be unmade
+     */
+    private int[] undoMove = new int[256];
+
+    /**
+     * The piece each move captured, or EMPTY
+     */
+    private int[] undoCaptured = new int[256];
+
+    /**
+     * The castling rights before each move
+     */
+    private int[] undoCastling = new int[256];
+
+    /**
+     * The en passant square before each move
+     */
+    private int[] undoEnPassant = new int[256];
+
+    /**
+     * The halfmove clock before each move
+     */
+    private int[] undoHalfmove = new int[256];
+
+    /**
+     * The hash before each move
+     */
+    private long[] undoHash = new long[256];
+
+    /**
+     * How many moves can be unmade
+     */
+    private int undoSize = 0;
+
+    /**
+     * Default constructor.<br>
+     * Creates an empty board.
+     */
+    public BitBoard() {
+        clear();
+    }
+
+    /**
+     * Creates a board from a FEN
+     * @param fen the FEN to set up
+     */
+    public BitBoard(String fen) {
+        setFEN(fen);
+    }
+
+    /**
+     * Creates a duplicate of the given BitBoard
+     * @param bb the BitBoard to duplicate
+     */
+    public BitBoard(BitBoard bb) {
+        copyFrom(bb);
+    }
+
+    /**
+     * Makes this board a copy of another without allocating anything
+     * @param bb the BitBoard to copy
+     */
+    public void copyFrom(BitBoard bb) {
+        System.arraycopy(bb.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(bb.mailbox, 0, mailbox, 0, mailbox.length);
+        whitePieces = bb.whitePieces;
+        blackPieces = bb.blackPieces;
+        whiteToMove = bb.whiteToMove;
+        castling = bb.castling;
+        enPassant = bb.enPassant;
+        halfmoveClock = bb.halfmoveClock;
+        fullmoveNumber = bb.fullmoveNumber;
+        hash = bb.hash;
+        enPassantHash = bb.enPassantHash;
+        undoSize = 0;
+    }
+
+    /**
+     * Removes every piece and resets the state of the game
+     */
+    public void clear() {
+        for(int i = 0; i < pieces.length; i++) {
+            pieces[i] = 0;
+        }
+        for(int i = 0; i < mailbox.length; i++) {
+            mailbox[i] = EMPTY;
+        }
+        whitePieces = 0;
+        blackPieces = 0;
+        whiteToMove = true;
+        castling = 0;
+        enPassant = NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        hash = 0;
+        enPassantHash = 0;
+        undoSize = 0;
+    }
+
+    /**
+     * Sets the pieces on this board to match a board of AbstractPieces<br>
+     * The side to move, castling rights and en passant square are kept
+     * @param board the board of AbstractPieces, indexed [column][row]
+     */
+    public void setPieces(AbstractPiece[][] board) {
+        for(int i = 0; i < pieces.length; i++) {
+            pieces[i] = 0;
+        }
+        for(int i = 0; i < mailbox.length; i++) {
+            mailbox[i] = EMPTY;
+        }
+        whitePieces = 0;
+        blackPieces = 0;
+        hash = CASTLING_KEYS[castling] ^ ((whiteToMove)?0:BLACK_TO_MOVE_KEY);
+        for(int i = 0; i < board.length; i++) {
+            for(int j = 0; j < board[i].length; j++) {
+                if(board[i][j] != null) {
+                    put(square(i, j), piece(board[i][j]));
+                }
+            }
+        }
+        enPassantHash = enPassantKey();
+        hash ^= enPassantHash;
+    }
+
+    /**
+     * Places a piece on an empty square
+     * @param square the square
+     * @param piece the piece to place
+     */
+    public void put(int square, int piece) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        if(piece < BLACK_PAWN) {
+            whitePieces |= bit;
+        } else {
+            blackPieces |= bit;
+        }
+        mailbox[square] = piece;
+        hash ^= PIECE_KEYS[piece][square];
+    }
+
+    /**
+     * Removes whichever piece is on a square
+     * @param square the square
+     * @return the piece that was removed, or EMPTY
+     */
+    public int remove(int square) {
+        int piece = mailbox[square];
+        if(piece == EMPTY) return EMPTY;
+        long bit = ~(1L << square);
+        pieces[piece] &= bit;
+        whitePieces &= bit;
+        blackPieces &= bit;
+        mailbox[square] = EMPTY;
+        hash ^= PIECE_KEYS[piece][square];
+        return piece;
+    }
+
+    /**
+     * Moves whichever piece is on one square to another,
+     * capturing anything on the destination
+     * @param from the square to move from
+     * @param to the square to move to
+     */
+    public void move(int from, int to) {
+        int piece = remove(from);
+        remove(to);
+        if(piece != EMPTY) put(to, piece);
+    }
+
+    /**
+     * Determines which piece is on a square
+     * @param square the square
+     * @return the piece on the square, or EMPTY
+     */
+    public int pieceAt(int square) {
+        return mailbox[square];
+    }
+
+    /**
+     * Returns the bitboard of one piece
+     * @param piece the piece
+     * @return where all of those pieces are
+     */
+    public long pieces(int piece) {
+        return pieces[piece];
+    }
+
+    /**
+     * Returns the bitboard of one kind of piece
+     * @param type which piece, as in MoveRecorder
+     * @param isWhite whether the pieces are white
+     * @return where all of those pieces are
+     */
+    public long pieces(int type, boolean isWhite) {
+        return pieces[piece(type, isWhite)];
+    }
+
+    /**
+     * Returns every piece of one color
+     * @param isWhite whether to return the white pieces
+     * @return where all of the pieces of that color are
+     */
+    public long occupancy(boolean isWhite) {
+        return (isWhite)?whitePieces:blackPieces;
+    }
+
+    /**
+     * Returns every piece on the board
+     * @return where all of the pieces are
+     */
+    public long occupancy() {
+        return whitePieces | blackPieces;
+    }
+
+    /**
+     * Determines where a king is
+     * @param isWhite whether the king is white
+     * @return the square of the king, or NO_SQUARE if there is none
+     */
+    public int kingSquare(boolean isWhite) {
+        long king = pieces[piece(MoveRecorder.KING, isWhite)];
+        return (king == 0)?NO_SQUARE:Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Returns whether it is white's turn
+     * @return whether it is white's turn
+     */
+    public boolean isWhiteToMove() {
+        return whiteToMove;
+    }
+
+    /**
+     * Sets whose turn it is
+     * @param whiteToMove whether it is white's turn
+     */
+    public void setWhiteToMove(boolean whiteToMove) {
+        if(this.whiteToMove != whiteToMove) hash ^= BLACK_TO_MOVE_KEY;
+        this.whiteToMove = whiteToMove;
+        rehashEnPassant();
+    }
+
+    /**
+     * Returns the castling rights
+     * @return the castling rights, as a combination of the castling flags
+     */
+    public int getCastling() {
+        return castling;
+    }
+
+    /**
+     * Sets the castling rights
+     * @param castling the castling rights, as a combination of the castling flags
+     */
+    public void setCastling(int castling) {
+        hash ^= CASTLING_KEYS[this.castling] ^ CASTLING_KEYS[castling];
+        this.castling = castling;
+    }
+
+    /**
+     * Removes any castling rights lost by a move between two squares
+     * @param from from where a piece is moved
+     * @param to to where a piece is moved
+     */
+    public void updateCastling(int from, int to) {
+        setCastling(castling & CASTLING_MASK[from] & CASTLING_MASK[to]);
+    }
+
+    /**
+     * Returns the square open for en passant
+     * @return the square open for en passant, or NO_SQUARE
+     */
+    public int getEnPassant() {
+        return enPassant;
+    }
+
+    /**
+     * Sets the square open for en passant
+     * @param enPassant the square open for en passant, or NO_SQUARE
+     */
+    public void setEnPassant(int enPassant) {
+        this.enPassant = enPassant;
+        rehashEnPassant();
+    }
+
+    /**
+     * Returns how many half moves have been made since the last capture or pawn move
+     * @return the halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Sets the halfmove clock
+     * @param halfmoveClock how many half moves have been made since the last capture or pawn move
+     */
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * Returns how many moves can be unmade
+     * @return how many moves can be unmade
+     */
+    public int undoSize() {
+        return undoSize;
+    }
+
+    /**
+     * Returns the Zobrist hash of this position<br>
+     * The hash covers the pieces, the side to move, the castling rights 
+     * and the en passant square if it can be captured on, but not the move clocks
+     * @return the Zobrist hash of this position
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Determines the Zobrist key of the en passant square<br>
+     * The square only counts when a pawn of the side to move stands next to
+     * the pawn pushed, so that positions which differ only by an en passant
+     * capture nobody can make hash the same, as the rules of repetition require
+     * @return the key, or 0 if no pawn can capture en passant
+     */
+    private long enPassantKey() {
+        if(enPassant == NO_SQUARE) return 0;
+        // the squares a pawn of the side to move would capture onto the en passant square from
+        long capturers = Attacks.pawn(enPassant, !whiteToMove) & pieces(MoveRecorder.PAWN, whiteToMove);
+        return (capturers == 0)?0:EN_PASSANT_KEYS[column(enPassant)];
+    }
+
+    /**
+     * Replaces the en passant key in the hash, after the en passant square,
+     * the side to move or the pawns have changed
+     */
+    private void rehashEnPassant() {
+        hash ^= enPassantHash;
+        enPassantHash = enPassantKey();
+        hash ^= enPassantHash;
+    }
+
+    /**
+     * Determines whether a square is attacked by one side<br>
+     * Works outward from the square: it is attacked if a piece of the other side
+     * standing there would attack a matching piece of the given side
+     * @param square the square
+     * @param byWhite whether to look for white attackers
+     * @return whether the square is attacked
+     */
+    public boolean isSquareAttacked(int square, boolean byWhite) {
+        int offset = (byWhite)?0:6;
+        long occupied = whitePieces | blackPieces;
+        long queens = pieces[MoveRecorder.QUEEN + offset];
+        return (Attacks.pawn(square, !byWhite) & pieces[MoveRecorder.PAWN + offset]) != 0
+                || (Attacks.knight(square) & pieces[MoveRecorder.KNIGHT + offset]) != 0
+                || (Attacks.king(square) & pieces[MoveRecorder.KING + offset]) != 0
+                || (Attacks.bishop(square, occupied) & (pieces[MoveRecorder.BISHOP + offset] | queens)) != 0
+                || (Attacks.rook(square, occupied) & (pieces[MoveRecorder.ROOK + offset] | queens)) != 0;
+    }
+
+    /**
+     * Finds every piece of one side attacking a square
+     * @param square the square
+     * @param byWhite whether to look for white attackers
+     * @param occupied the occupied squares to use for blocking sliders
+     * @return where the attackers are
+     */
+    public long attackersOf(int square, boolean byWhite, long occupied) {
+        int offset = (byWhite)?0:6;
+        long queens = pieces[MoveRecorder.QUEEN + offset];
+        return (Attacks.pawn(square, !byWhite) & pieces[MoveRecorder.PAWN + offset])
+                | (Attacks.knight(square) & pieces[MoveRecorder.KNIGHT + offset])
+                | (Attacks.king(square) & pieces[MoveRecorder.KING + offset])
+                | (Attacks.bishop(square, occupied) & (pieces[MoveRecorder.BISHOP + offset] | queens))
+                | (Attacks.rook(square, occupied) & (pieces[MoveRecorder.ROOK + offset] | queens));
+    }
+
+    /**
+     * Determines whether a side's king is in check
+     * @param isWhite whether the side to look at is white
+     * @return whether that side is in check
+     */
+    public boolean inCheck(boolean isWhite) {
+        int king = kingSquare(isWhite);
+        return king != NO_SQUARE && isSquareAttacked(king, !isWhite);
+    }
+
+    /**
+     * Determines whether a pseudo-legal move leaves the mover's own king safe<br>
+     * The move is made and unmade to find out
+     * @param move the encoded move
+     * @return whether the move is legal
+     */
+    public boolean isLegal(int move) {
+        boolean sideToMove = whiteToMove, isWhite = isWhite(mailbox[Move.from(move)]);
+        setWhiteToMove(isWhite);
+        makeMove(move);
+        boolean legal = !inCheck(isWhite);
+        unmakeMove();
+        setWhiteToMove(sideToMove);
+        return legal;
+    }
+
+    /**
+     * Determines the move which would go from one square to another in this position,
+     * working out its flags
+     * @param from the square moved from
+     * @param to the square moved to
+     * @param promotion the piece promoted to, as in MoveRecorder, or 0 if there is none
+     * @return the encoded move
+     */
+    public int toMove(int from, int to, int promotion) {
+        int piece = mailbox[from], flags = 0;
+        if(mailbox[to] != EMPTY) flags |= Move.CAPTURE;
+        if(type(piece) == MoveRecorder.PAWN) {
+            if(to == enPassant) flags |= Move.CAPTURE | Move.EN_PASSANT;
+            if(Math.abs(from - to) == 16) flags |= Move.DOUBLE_PUSH;
+        } else if(type(piece) == MoveRecorder.KING && Math.abs(from - to) == 2) {
+            flags |= Move.CASTLING;
+        }
+        return Move.create(from, to, promotion, flags);
+    }
+
+    /**
+     * Makes a move, remembering enough to unmake it later<br>
+     * The move is trusted to be at least pseudo-legal
+     * @param move the encoded move
+     * @return the piece captured, or EMPTY
+     */
+    public int makeMove(int move) {
+        if(undoSize == undoMove.length) {
+            int length = undoSize * 2;
+            undoMove = Arrays.copyOf(undoMove, length);
+            undoCaptured = Arrays.copyOf(undoCaptured, length);
+            undoCastling = Arrays.copyOf(undoCastling, length);
+            undoEnPassant = Arrays.copyOf(undoEnPassant, length);
+            undoHalfmove = Arrays.copyOf(undoHalfmove, length);
+            undoHash = Arrays.copyOf(undoHash, length);
+        }
+        long before = hash;
+        int from = Move.from(move), to = Move.to(move);
+        int piece = remove(from), captured;
+        if(Move.isEnPassant(move)) {
+            captured = remove(to + ((whiteToMove)?8:-8));
+        } else {
+            captured = remove(to);
+        }
+        int promotion = Move.promotion(move);
+        put(to, (promotion == 0)?piece:piece(promotion, whiteToMove));
+        if(Move.isCastling(move)) {
+            if(to > from) {
+                // Castling Kingside
+                put(from + 1, remove(from + 3));
+            } else {
+                // Castling Queenside
+                put(from - 1, remove(from - 4));
+            }
+        }
+
+        undoMove[undoSize] = move;
+        undoCaptured[undoSize] = captured;
+        undoCastling[undoSize] = castling;
+        undoEnPassant[undoSize] = enPassant;
+        undoHalfmove[undoSize] = halfmoveClock;
+        undoHash[undoSize] = before;
+        undoSize++;
+
+        updateCastling(from, to);
+        if(type(piece) == MoveRecorder.PAWN || captured != EMPTY) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+        if(!whiteToMove) fullmoveNumber++;
+        whiteToMove = !whiteToMove;
+        hash ^= BLACK_TO_MOVE_KEY;
+        // after the turn passes, since whether it counts depends on who may capture
+        setEnPassant((Move.isDoublePush(move))?(from + to) / 2:NO_SQUARE);
+        return captured;
+    }
+
+    /**
+     * Unmakes the last move made with makeMove
+     * @return the move which was unmade
+     */
+    public int unmakeMove() {
+        if(undoSize == 0) throw new IllegalStateException("No move to unmake");
+        undoSize--;
+        int move = undoMove[undoSize], captured = undoCaptured[undoSize];
+        whiteToMove = !whiteToMove;
+        if(!whiteToMove) fullmoveNumber--;
+        int from = Move.from(move), to = Move.to(move);
+        int piece = remove(to);
+        put(from, (Move.isPromotion(move))?piece(MoveRecorder.PAWN, whiteToMove):piece);
+        if(Move.isCastling(move)) {
+            if(to > from) {
+                put(from + 3, remove(from + 1));
+            } else {
+                put(from - 4, remove(from - 1));
+            }
+        }
+        if(captured != EMPTY) {
+            put((Move.isEnPassant(move))?to + ((whiteToMove)?8:-8):to, captured);
+        }
+        castling = undoCastling[undoSize];
+        enPassant = undoEnPassant[undoSize];
+        halfmoveClock = undoHalfmove[undoSize];
+        hash = undoHash[undoSize];
+        enPassantHash = enPassantKey();
+        return move;
+    }
+
+    /**
+     * Determines whether either side has insufficient material to checkmate<br>
+     * Follows the same rules as ChessBoard has always used
+     * @return whether either side has insufficient material to checkmate
+     */
+    public boolean insufficientMaterial() {
+        long heavy = pieces[WHITE_PAWN] | pieces[BLACK_PAWN]
+                | pieces[MoveRecorder.ROOK] | pieces[MoveRecorder.ROOK + 6]
+                | pieces[MoveRecorder.QUEEN] | pieces[MoveRecorder.QUEEN + 6];
+        if(heavy != 0) return false;
+        int whiteKnights = Long.bitCount(pieces[MoveRecorder.KNIGHT]),
+                blackKnights = Long.bitCount(pieces[MoveRecorder.KNIGHT + 6]);
+        if(whiteKnights > 1 || blackKnights > 1) return false;
+        long whiteBishops = pieces[MoveRecorder.BISHOP],
+                blackBishops = pieces[MoveRecorder.BISHOP + 6];
+        final boolean noBW = (whiteBishops & LIGHT_SQUARES) == 0,
+                noBB = (whiteBishops & ~LIGHT_SQUARES) == 0, noN = whiteKnights == 0;
+        final boolean nobw = (blackBishops & LIGHT_SQUARES) == 0,
+                nobb = (blackBishops & ~LIGHT_SQUARES) == 0, non = blackKnights == 0;
+        final boolean whiteBare = noBW && noBB && noN;
+        final boolean blackBare = nobw && nobb && non;
+        return (whiteBare && blackBare) ||
+                (noN && non && ((noBB && nobb) || (noBW && nobw))) ||
+                (blackBare && noN && (noBW || noBB)) ||
+                (blackBare && noBB && noBW && whiteKnights == 1) ||
+                (whiteBare && non && (nobw || nobb)) ||
+                (whiteBare && nobb && nobw && blackKnights == 1);
+    }
+
+    /**
+     * Returns a miniature of this board, in the same format as ChessBoard.miniFEN()
+     * @return a miniature of this board
+     */
+    public String miniFEN() {
+        StringBuilder output = new StringBuilder(72);
+        for(int col = 0; col < 8; col++) {
+            int blanks = 0;
+            for(int row = 0; row < 8; row++) {
+                int piece = mailbox[square(col, row)];
+                if(piece == EMPTY) {
+                    blanks++;
+                } else {
+                    if(blanks != 0) {
+                        output.append(blanks);
+                    }
+                    blanks = 0;
+                    output.append(PIECE_CHARS.charAt(piece));
+                }
+            }
+            output.append('/');
+        }
+        return output.toString();
+    }
+
+    /**
+     * Sets this board up from a FEN
+     * @param fen the FEN
+     */
+    public void setFEN(String fen) {
+        clear();
+        String[] fields = fen.trim().split("\\s+");
+        int row = 0, col = 0;
+        for(char c : fields[0].toCharArray()) {
+            if(c == '/') {
+                row++;
+                col = 0;
+            } else if(Character.isDigit(c)) {
+                col += c - '0';
+            } else {
+                int piece = PIECE_CHARS.indexOf(c);
+                if(piece == -1 || !ChessBoard.isValidSquare(col, row))
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                put(square(col, row), piece);
+                col++;
+            }
+        }
+        setWhiteToMove(fields.length < 2 || fields[1].equals("w"));
+        int castling = 0;
+        if(fields.length > 2) {
+            for(char c : fields[2].toCharArray()) {
+                switch(c) {
+                    case 'K':
+                        castling |= WHITE_KINGSIDE;
+                        break;
+                    case 'Q':
+                        castling |= WHITE_QUEENSIDE;
+                        break;
+                    case 'k':
+                        castling |= BLACK_KINGSIDE;
+                        break;
+                    case 'q':
+                        castling |= BLACK_QUEENSIDE;
+                        break;
+                }
+            }
+        }
+        setCastling(castling);
+        if(fields.length > 3 && !fields[3].equals("-")) {
+            setEnPassant(square(fields[3]));
+        }
+        if(fields.length > 5) {
+            halfmoveClock = Integer.parseInt(fields[4]);
+            fullmoveNumber = Integer.parseInt(fields[5]);
+        }
+    }
+
+    /**
+     * Returns the FEN of this board
+     * @return the FEN of this board
+     */
+    public String toFEN() {
+        StringBuilder output = new StringBuilder(90);
+        for(int row = 0; row < 8; row++) {
+            int blanks = 0;
+            for(int col = 0; col < 8; col++) {
+                int piece = mailbox[square(col, row)];
+                if(piece == EMPTY) {
+                    blanks++;
+                } else {
+                    if(blanks != 0) output.append(blanks);
+                    blanks = 0;
+                    output.append(PIECE_CHARS.charAt(piece));
+                }
+            }
+            if(blanks != 0) output.append(blanks);
+            if(row != 7) output.append('/');
+        }
+        output.append((whiteToMove)?" w ":" b ");
+        if(castling == 0) output.append('-');
+        if((castling & WHITE_KINGSIDE) != 0) output.append('K');
+        if((castling & WHITE_QUEENSIDE) != 0) output.append('Q');
+        if((castling & BLACK_KINGSIDE) != 0) output.append('k');
+        if((castling & BLACK_QUEENSIDE) != 0) output.append('q');
+        output.append(' ').append((enPassant == NO_SQUARE)?"-":toSquare(enPassant));
+        output.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return output.toString();
+    }
+
+    /**
+     * Determines the square number of ABSOLUTE coordinates
+     * @param col the ABSOLUTE column
+     * @param row the ABSOLUTE row
+     * @return the square number
+     */
+    public static int square(int col, int row) {
+        return row * 8 + col;
+    }
+
+    /**
+     * Determines the square number of a square
+     * @param s a square, such as "e4"
+     * @return the square number
+     */
+    public static int square(String s) {
+        return square(ChessBoard.getColumn(s), ChessBoard.getRow(s));
+    }
+
+    /**
+     * Determines the ABSOLUTE column of a square number
+     * @param square the square number
+     * @return the ABSOLUTE column
+     */
+    public static int column(int square) {
+        return square & 7;
+    }
+
+    /**
+     * Determines the ABSOLUTE row of a square number
+     * @param square the square number
+     * @return the ABSOLUTE row
+     */
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    /**
+     * Determines the name of a square number
+     * @param square the square number
+     * @return the square, such as "e4"
+     */
+    public static String toSquare(int square) {
+        return ChessBoard.toSquare(column(square), row(square));
+    }
+
+    /**
+     * Determines the piece number of a piece
+     * @param type which piece, as in MoveRecorder
+     * @param isWhite whether the piece is white
+     * @return the piece number
+     */
+    public static int piece(int type, boolean isWhite) {
+        return (isWhite)?type:type + 6;
+    }
+
+    /**
+     * Determines the piece number of an AbstractPiece
+     * @param ap the AbstractPiece
+     * @return the piece number
+     */
+    public static int piece(AbstractPiece ap) {
+        return piece(ap.getType(), ap.isWhite);
+    }
+
+    /**
+     * Determines which kind of piece a piece number is
+     * @param piece the piece number
+     * @return which piece, as in MoveRecorder
+     */
+    public static int type(int piece) {
+        return (piece < BLACK_PAWN)?piece:piece - 6;
+    }
+
+    /**
+     * Determines whether a piece number is white
+     * @param piece the piece number
+     * @return whether the piece is white
+     */
+    public static boolean isWhite(int piece) {
+        return piece < BLACK_PAWN;
+    }
+
+    /**
+     * Creates an AbstractPiece to match a piece number
+     * @param piece the piece number
+     * @return the AbstractPiece
+     */
+    public static AbstractPiece toAbstractPiece(int piece) {
+        boolean isWhite = isWhite(piece);
+        switch(type(piece)) {
+            case MoveRecorder.PAWN:
+                return new Pawn(isWhite);
+            case MoveRecorder.KNIGHT:
+                return new Knight(isWhite);
+            case MoveRecorder.BISHOP:
+                return new Bishop(isWhite);
+            case MoveRecorder.ROOK:
+                return new Rook(isWhite);
+            case MoveRecorder.QUEEN:
+                return new Queen(isWhite);
+            case MoveRecorder.KING:
+                return new King(isWhite);
+            default:
+                throw new IllegalArgumentException("Unknown piece: " + piece);
+        }
+    }
+}
@@ -1,19 +1,33 @@
 package chessai;
 
-import java.util.LinkedList;
-import java.util.List;
+import javax.management.JMException;
 
 public class ChessAIMain {
-    public static void main(String[] args) {
-        List<TreeNode> list = new LinkedList<>();
-        list.add(null);
-        TreeNode tn = new TreeNode(new ChessBoard());
-        long start = System.nanoTime();
-        for(int i = 0; i < 1000; i++) {
-            System.out.println(i);
-            tn.selectAction();
+    public static void main(String[] args) throws JMException {
+        // the time to think in milliseconds, the number of search threads
+        // and the engine, "mcts" or "alphabeta", may be given;
+        // alphabeta searches on one thread, so it takes no more than that
+        int threads = (args.length > 1)?Integer.parseInt(args[1]):1;
+        SearchEngine engine;
+        if(args.length > 2 && args[2].equals("alphabeta")) {
+            if(threads != 1)
+                throw new IllegalArgumentException("alphabeta searches on one thread, not " + threads);
+            engine = new AlphaBetaSearch(new ChessBoard());
+        } else {
+            SearchController sc = new SearchController(new ChessBoard());
+            sc.setThreads(threads);
+            if(args.length == 0) {
+                sc.setIterationLimit(1000);
+            }
+            engine = sc;
         }
-        long time = System.nanoTime() - start;
-        System.out.println(time + " nanos");
+        if(args.length > 0) {
+            engine.setTimeLimit(Long.parseLong(args[0]));
+        }
+        // the counters can be watched over JMX while the search runs
+        engine.getMetrics().register("main");
+        SearchResult result = engine.search();
+        System.out.println(result);
+        System.out.println(engine.getMetrics());
     }
-}
+}
\ No newline at end of file
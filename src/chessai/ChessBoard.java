@@ -1,8 +1,7 @@
 package chessai;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Arrays;
 
 /**
  * A class that represents a chess board
@@ -44,14 +43,21 @@ public class ChessBoard {
     private String enPassant = null;
     
     /**
-     * A Map of all of the legal moves possible
+     * All of the legal moves possible, encoded as in Move<br>
+     * Only the first legalMoveCount are valid
      */
-    private HashMap<String, LinkedList<String>> allLegalMoves;
+    private int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
     
     /**
-     * A Map of the king's position
+     * How many legal moves there are in legalMoves
      */
-    private HashMap<Boolean, String> kingPos;
+    private int legalMoveCount = 0;
+    
+    /**
+     * The bitboards which mirror board<br>
+     * Also keeps track of castling rights
+     */
+    private BitBoard bits;
     
     /**
      * The square a pawn is promoting from<br>
@@ -60,22 +66,56 @@ public class ChessBoard {
     private String promotingFrom = null;
     
     /**
-     * Counts how many times a position repeats<br>
+     * Counts how many times a position repeats, keyed by Zobrist hash<br>
      * Controls threefold repetition
      */
-    private HashMap<String, Integer> positions;
+    private LongIntHashMap positions;
+    
+    /**
+     * Whether any position has repeated three times
+     */
+    private boolean repeatedThrice = false;
+    
+    /**
+     * The Zobrist hash of each position of the game, in the order played<br>
+     * Lets a search see repetitions of positions reached before it started
+     */
+    private long[] history = new long[64];
+    
+    /**
+     * How many positions the history holds
+     */
+    private int historySize = 0;
+    
+    /**
+     * The pieces captured by the moves made with makeMove
+     */
+    private AbstractPiece[] undoCaptured = new AbstractPiece[64];
+    
+    /**
+     * The pieces moved by the moves made with makeMove<br>
+     * Needed to bring back pawns which promoted
+     */
+    private AbstractPiece[] undoMoved = new AbstractPiece[64];
+    
+    /**
+     * How many moves made with makeMove can be unmade
+     */
+    private int undoSize = 0;
     
     /**
      * Default constructor.
      */
     public ChessBoard() {
         board = new AbstractPiece[8][8];
-        kingPos = new HashMap<>();
         addPieces();
+        bits = new BitBoard();
+        bits.setPieces(board);
+        bits.setCastling(BitBoard.ALL_CASTLING);
         mr = new MoveRecorder();
-        allLegalMoves = new HashMap<>();
-        positions = new HashMap<>();
+        positions = new LongIntHashMap();
         recalculateMoves();
+        history[historySize++] = bits.getHash();
     }
     
     /**
@@ -104,9 +144,6 @@ public class ChessBoard {
         board[5][7] = new Bishop(true);
         board[6][7] = new Knight(true);
         board[7][7] = new Rook(true);
-        
-        kingPos.put(true, "e1");
-        kingPos.put(false, "e8");
     }
     
     /**
@@ -114,12 +151,20 @@ public class ChessBoard {
      * @param cb the ChessBoard to duplicate
      */
     public ChessBoard(ChessBoard cb) {
-        this();
+        board = new AbstractPiece[8][8];
         for(int i = 0; i < cb.board.length; i++) {
             System.arraycopy(cb.board[i], 0, board[i], 0, cb.board[i].length);
         }
+        bits = new BitBoard(cb.bits);
+        this.playerIsWhite = cb.playerIsWhite;
         this.enPassant = cb.enPassant;
         mr = new MoveRecorder(cb.mr);
+        System.arraycopy(cb.legalMoves, 0, legalMoves, 0, cb.legalMoveCount);
+        legalMoveCount = cb.legalMoveCount;
+        positions = new LongIntHashMap(cb.positions);
+        repeatedThrice = cb.repeatedThrice;
+        history = Arrays.copyOf(cb.history, cb.history.length);
+        historySize = cb.historySize;
     }
     
     /**
@@ -302,29 +347,78 @@ public class ChessBoard {
     }
     
     /**
-     * Recalculates all of the moves on a square
+     * Recalculates all of the legal moves of the current player
      */
     public void recalculateMoves() {
-        allLegalMoves = new HashMap<>();
-        for(int i = 0; i < board.length; i++) {
-            for(int j = 0; j < board[i].length; j++) {
-                if(board[i][j] == null) continue;
-                if(board[i][j].isWhite == playerIsWhite) {
-                    String current = ChessBoard.toSquare(i, j);
-                    LinkedList<String> moves = board[i][j].legalMoves(this, current);
-                    if(board[i][j].getCharRepresentation().equals("P") && 
-                            ((i == 1 && playerIsWhite) || (i == 6 && !playerIsWhite))) {
-                        LinkedList<String> copy = new LinkedList<>(moves);
-                        for(String move : copy) {
-                            moves.add(move);
-                            moves.add(move);
-                            moves.add(move);
-                        }
-                    }
-                    allLegalMoves.put(current, moves);
-                }
-            }
+        legalMoveCount = MoveGenerator.generateLegal(bits, legalMoves, 0);
+    }
+    
+    /**
+     * Returns one of the legal moves, as numbered by movePiece(int)
+     * @param whichMove which move
+     * @return the move, encoded as in Move
+     */
+    public int getLegalMove(int whichMove) {
+        if(whichMove < 0 || whichMove >= legalMoveCount) 
+            throw new IndexOutOfBoundsException(whichMove + "");
+        return legalMoves[whichMove];
+    }
+    
+    /**
+     * Finds a legal move<br>
+     * Only the squares and the promotion are compared
+     * @param move the move, encoded as in Move
+     * @return which move, as numbered by movePiece(int), or -1 if it is not legal
+     */
+    public int indexOfLegalMove(int move) {
+        for(int i = 0; i < legalMoveCount; i++) {
+            int legal = legalMoves[i];
+            if(Move.from(legal) == Move.from(move) && Move.to(legal) == Move.to(move)
+                    && Move.promotion(legal) == Move.promotion(move)) return i;
         }
+        return -1;
+    }
+    
+    /**
+     * Fills a buffer with every legal move of the current player<br>
+     * The moves are encoded as in Move
+     * @param moves the buffer to fill, MoveGenerator.MAX_MOVES long is always enough
+     * @return how many moves were generated
+     */
+    public int generateLegalMoves(int[] moves) {
+        return MoveGenerator.generateLegal(bits, moves, 0);
+    }
+    
+    /**
+     * Fills a buffer with every legal move of the piece on a square<br>
+     * Nothing is generated unless it is that piece's turn
+     * @param square the square of the piece
+     * @param moves the buffer to fill, MoveGenerator.MAX_MOVES long is always enough
+     * @return how many moves were generated
+     */
+    public int generateLegalMoves(String square, int[] moves) {
+        return MoveGenerator.generateLegal(bits, BitBoard.square(square), moves, 0);
+    }
+    
+    /**
+     * Fills a buffer with every pseudo-legal move of the current player<br>
+     * The moves are encoded as in Move and may leave the king in check
+     * @param moves the buffer to fill, MoveGenerator.MAX_MOVES long is always enough
+     * @return how many moves were generated
+     */
+    public int generateMoves(int[] moves) {
+        return MoveGenerator.generate(bits, moves, 0);
+    }
+    
+    /**
+     * Fills a buffer with every pseudo-legal move of the piece on a square<br>
+     * The moves are encoded as in Move and may leave the king in check
+     * @param square the square of the piece
+     * @param moves the buffer to fill, MoveGenerator.MAX_MOVES long is always enough
+     * @return how many moves were generated
+     */
+    public int generateMoves(String square, int[] moves) {
+        return MoveGenerator.generate(bits, BitBoard.square(square), moves, 0);
     }
     
     /**
@@ -349,59 +443,124 @@ public class ChessBoard {
      * @param toWhereY where to move a piece
      */
     public void movePiece(int fromWhereX, int fromWhereY, int toWhereX, int toWhereY) {
-        ChessBoard thisCopy = new ChessBoard(this);
-        maybeMove(fromWhereX, fromWhereY, toWhereX, toWhereY);
+        boolean isWhite = playerIsWhite;
+        String notation = mr.describe(this, toSquare(fromWhereX, fromWhereY), toSquare(toWhereX, toWhereY), 0);
+        makeMove(bits.toMove(BitBoard.square(fromWhereX, fromWhereY), BitBoard.square(toWhereX, toWhereY), 0));
         if(board[toWhereX][toWhereY].getCharRepresentation().equals("K")) {
             ((King)(board[toWhereX][toWhereY])).notifyOfMove();
         }
-        enPassant = null;
-        if(board[toWhereX][toWhereY].getCharRepresentation().equals("P")) {
-            if(Math.abs(fromWhereY-toWhereY) == 2) {
-                String file = (char) ('a' + fromWhereX) + "", rank = String.valueOf(8-((fromWhereY+toWhereY)/2));
-                enPassant = file + rank;
-            }
-        }
-        String kingAt = kingPos.get(playerIsWhite);
-        ((King)(board[getColumn(kingAt)][getRow(kingAt)])).notifyNoCheck();
-        playerIsWhite = !playerIsWhite;
+        ((King)(getPiece(kingSquare(isWhite)))).notifyNoCheck();
         recalculateMoves();
-        updatePos(miniFEN());
-        mr.moved(thisCopy, this, ChessBoard.toSquare(fromWhereX, fromWhereY), ChessBoard.toSquare(toWhereX, toWhereY));
+        updatePos(bits.getHash());
+        mr.moved(notation, this, isWhite);
         if(inCheck(playerIsWhite)) {
-            ((King)(getPiece(kingPos.get(playerIsWhite)))).notifyCheck();
+            ((King)(getPiece(kingSquare(playerIsWhite)))).notifyCheck();
         }
     }
     
+    /**
+     * Makes a move in place, so that it can be taken back with unmakeMove()<br>
+     * Unlike movePiece, this does not recalculate the legal moves, 
+     * note the move in the MoveRecorder or count repeated positions
+     * @param move the move, encoded as in Move
+     */
+    public void makeMove(int move) {
+        if(undoSize == undoMoved.length) {
+            undoMoved = Arrays.copyOf(undoMoved, undoSize * 2);
+            undoCaptured = Arrays.copyOf(undoCaptured, undoSize * 2);
+        }
+        int from = Move.from(move), to = Move.to(move);
+        int fromX = BitBoard.column(from), fromY = BitBoard.row(from);
+        int toX = BitBoard.column(to), toY = BitBoard.row(to);
+        AbstractPiece moved = board[fromX][fromY], captured;
+        if(Move.isEnPassant(move)) {
+            captured = board[toX][fromY];
+            board[toX][fromY] = null;
+        } else {
+            captured = board[toX][toY];
+        }
+        board[fromX][fromY] = null;
+        if(Move.isPromotion(move)) {
+            board[toX][toY] = BitBoard.toAbstractPiece(BitBoard.piece(Move.promotion(move), moved.isWhite));
+        } else {
+            board[toX][toY] = moved;
+        }
+        if(Move.isCastling(move)) {
+            if(fromX < toX) {
+                // Castling Kingside
+                board[toX - 1][toY] = board[7][fromY];
+                board[7][fromY] = null;
+            } else {
+                // Castling Queenside
+                board[toX + 1][toY] = board[0][fromY];
+                board[0][fromY] = null;
+            }
+        }
+        undoMoved[undoSize] = moved;
+        undoCaptured[undoSize] = captured;
+        undoSize++;
+        bits.makeMove(move);
+        playerIsWhite = bits.isWhiteToMove();
+        enPassant = (bits.getEnPassant() == BitBoard.NO_SQUARE)?null:BitBoard.toSquare(bits.getEnPassant());
+    }
+    
+    /**
+     * Takes back the last move made with makeMove(int)
+     */
+    public void unmakeMove() {
+        if(undoSize == 0) throw new IllegalStateException("No move to unmake");
+        undoSize--;
+        int move = bits.unmakeMove();
+        int from = Move.from(move), to = Move.to(move);
+        int fromX = BitBoard.column(from), fromY = BitBoard.row(from);
+        int toX = BitBoard.column(to), toY = BitBoard.row(to);
+        board[fromX][fromY] = undoMoved[undoSize];
+        if(Move.isEnPassant(move)) {
+            board[toX][toY] = null;
+            board[toX][fromY] = undoCaptured[undoSize];
+        } else {
+            board[toX][toY] = undoCaptured[undoSize];
+        }
+        if(Move.isCastling(move)) {
+            if(fromX < toX) {
+                board[7][fromY] = board[toX - 1][toY];
+                board[toX - 1][toY] = null;
+            } else {
+                board[0][fromY] = board[toX + 1][toY];
+                board[toX + 1][toY] = null;
+            }
+        }
+        undoMoved[undoSize] = null;
+        undoCaptured[undoSize] = null;
+        playerIsWhite = bits.isWhiteToMove();
+        enPassant = (bits.getEnPassant() == BitBoard.NO_SQUARE)?null:BitBoard.toSquare(bits.getEnPassant());
+    }
+    
     /**
      * Moves a piece according to a move denoted by the number<br>
-     * Searches through allLegalMoves to find it
+     * The number indexes the legal moves, and every promotion counts separately
      * @param whichMove which move
      */
     public void movePiece(int whichMove) {
-        recalculateMoves();
-        if(whichMove < 0 || whichMove >= numOfLegalMoves()) 
-            throw new IndexOutOfBoundsException(whichMove + "");
-        int copy = whichMove;
-        String from = null, to = null;
-        for(String key : allLegalMoves.keySet()) {
-            if(copy < allLegalMoves.get(key).size()) {
-                from = key;
-                to = allLegalMoves.get(key).get(copy);
-                if(getPiece(from)
-                        .getCharRepresentation().equals("P") && 
-                        ((getRow(to) == 1 && playerIsWhite) || (getRow(to) == 6 && !playerIsWhite))) {
-                    promotePiece(from, to, copy%4 + 1);
-                }
-                break;
-            } else {
-                copy -= allLegalMoves.get(key).size();
-            }
+        int move = getLegalMove(whichMove);
+        if(Trace.LEVEL >= Trace.DEBUG) {
+            Trace.log(Trace.DEBUG, ((playerIsWhite)?"White":"Black") + " moved. \tMove #" + whichMove
+                    + " \tFrom: " + BitBoard.toSquare(Move.from(move)) + " \tTo: " + BitBoard.toSquare(Move.to(move)));
+        }
+        playMove(move);
+    }
+    
+    /**
+     * Plays a move encoded as in Move, recording it like movePiece
+     * @param move the move, which must be legal
+     */
+    public void playMove(int move) {
+        String from = BitBoard.toSquare(Move.from(move)), to = BitBoard.toSquare(Move.to(move));
+        if(Move.isPromotion(move)) {
+            promotePiece(from, to, Move.promotion(move));
+        } else {
+            movePiece(from, to);
         }
-        if(from == null || to == null) 
-            assert false : "Impossible!";
-        String side = (playerIsWhite)?"White":"Black";
-        System.out.println(side + " moved. \tMove #" + whichMove + " \tFrom: " + from + " \tTo: " + to);
-        movePiece(from, to);
     }
     
     /**
@@ -432,14 +591,17 @@ public class ChessBoard {
                         // Castling Kingside
                         board[toWhereX - 1][toWhereY] = board[7][fromWhereY];
                         board[7][fromWhereY] = null;
+                        bits.move(BitBoard.square(7, fromWhereY), BitBoard.square(toWhereX - 1, toWhereY));
                     } else {
                         // Castling Queenside
                         board[toWhereX + 1][toWhereY] = board[0][fromWhereY];
                         board[0][fromWhereY] = null;
+                        bits.move(BitBoard.square(0, fromWhereY), BitBoard.square(toWhereX + 1, toWhereY));
                     }
                 }
             } else if (toSquare(toWhereX, toWhereY).equals(enPassant)) {
                 board[getColumn(enPassant)][getRow(enPassant) + (fromWhereY - toWhereY)] = null;
+                bits.remove(BitBoard.square(getColumn(enPassant), getRow(enPassant) + (fromWhereY - toWhereY)));
             }
         } catch (NullPointerException npe) {
             System.out.println(board[fromWhereX][fromWhereY] == null);
@@ -448,7 +610,7 @@ public class ChessBoard {
         
         board[toWhereX][toWhereY] = board[fromWhereX][fromWhereY];
         board[fromWhereX][fromWhereY] = null;
-        if(board[toWhereX][toWhereY].getCharRepresentation().equals("K")) kingPos.put(playerIsWhite, toSquare(toWhereX, toWhereY));
+        bits.move(BitBoard.square(fromWhereX, fromWhereY), BitBoard.square(toWhereX, toWhereY));
     }
     
     /**
@@ -460,31 +622,18 @@ public class ChessBoard {
     public void promotePiece(String fromWhere, String toWhere, int toWhatPiece) {
         if(!getPiece(fromWhere).getCharRepresentation().equals("P")) 
             assert false : "Cannot promote a non-pawn";
+        if(toWhatPiece < MoveRecorder.KNIGHT || toWhatPiece > MoveRecorder.QUEEN) 
+            throw new IllegalArgumentException("Unknown piece: " + toWhatPiece);
         boolean isWhite = getPiece(fromWhere).isWhite;
-        ChessBoard thisCopy = new ChessBoard(this);
-        int fromWhereX = getColumn(fromWhere), fromWhereY = getRow(fromWhere);
-        int toWhereX = getColumn(toWhere), toWhereY = getRow(toWhere);
-        board[fromWhereX][fromWhereY] = null;
-        // board[toWhereX][toWhereY];
-        switch(toWhatPiece) {
-            case MoveRecorder.BISHOP:
-                board[toWhereX][toWhereY] = new Bishop(isWhite);
-                break;
-            case MoveRecorder.KNIGHT:
-                board[toWhereX][toWhereY] = new Knight(isWhite);
-                break;
-            case MoveRecorder.QUEEN:
-                board[toWhereX][toWhereY] = new Queen(isWhite);
-                break;
-            case MoveRecorder.ROOK:
-                board[toWhereX][toWhereY] = new Rook(isWhite);
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown piece: " + toWhatPiece);
-        }
-        playerIsWhite = !playerIsWhite;
-        mr.moved(thisCopy, this, fromWhere, toWhere);
+        String notation = mr.describe(this, fromWhere, toWhere, toWhatPiece);
+        makeMove(bits.toMove(BitBoard.square(fromWhere), BitBoard.square(toWhere), toWhatPiece));
+        ((King)(getPiece(kingSquare(isWhite)))).notifyNoCheck();
         recalculateMoves();
+        updatePos(bits.getHash());
+        mr.moved(notation, this, isWhite);
+        if(inCheck(playerIsWhite)) {
+            ((King)(getPiece(kingSquare(playerIsWhite)))).notifyCheck();
+        }
     }
     
     /**
@@ -510,6 +659,8 @@ public class ChessBoard {
     @Deprecated
     public void placePiece(AbstractPiece ap, int col, int row) {
         board[col][row] = ap;
+        bits.remove(BitBoard.square(col, row));
+        if(ap != null) bits.put(BitBoard.square(col, row), BitBoard.piece(ap));
     }
     
     /**
@@ -518,21 +669,17 @@ public class ChessBoard {
      * @return whether the side is in check
      */
     public boolean inCheck(boolean isWhite) {
-        for(int i = 0;i<8;i++) {
-            for(int j = 0;j<8;j++) {
-                AbstractPiece ap = getPiece(i, j);//lit dude lit
-                if(ap != null) {
-                    if(ap.isWhite ^ isWhite) {
-                        //if(ap.legalCaptures(this, ChessBoard.toSquare(i, j)).contains(kingPos))
-                        // if the current opposite-colored piece can eat the king on the next move
-                        if(ap.isAllLegalMove(this, ChessBoard.toSquare(i, j), kingPos.get(isWhite))) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+        return bits.inCheck(isWhite);
+    }
+    
+    /**
+     * Determines whether a square is attacked by one side
+     * @param square the square
+     * @param byWhite whether to look for white attackers
+     * @return whether the square is attacked
+     */
+    public boolean isSquareAttacked(String square, boolean byWhite) {
+        return bits.isSquareAttacked(BitBoard.square(square), byWhite);
     }
     
     /**
@@ -541,12 +688,7 @@ public class ChessBoard {
      * @return whether the side is checkmated
      */
     public boolean checkMated(boolean isWhite) {
-        if(inCheck(isWhite)) {
-            for(String s : allLegalMoves.keySet()) {
-                if(!allLegalMoves.get(s).isEmpty()) return false;
-            }
-            return true;
-        } else return false;
+        return legalMoveCount == 0 && inCheck(isWhite);
     }
     
     /**
@@ -555,10 +697,7 @@ public class ChessBoard {
      * @return whether one side is stalemated
      */
     public boolean stalemated(boolean isWhite) {
-        for(LinkedList<String> allLegalMove : allLegalMoves.values()) {
-            if(!allLegalMove.isEmpty()) return false;
-        }
-        return !inCheck(isWhite);
+        return legalMoveCount == 0 && !inCheck(isWhite);
     }
     
     /**
@@ -566,51 +705,7 @@ public class ChessBoard {
      * @return whether either side has insufficient material to checkmate
      */
     public boolean insufficientMaterial() {
-        HashMap<String, Integer> pieces = new HashMap<>();
-        pieces.put("BW", 0);
-        pieces.put("BB", 0);
-        pieces.put("N", 0);
-        pieces.put("bw", 0);
-        pieces.put("bb", 0);
-        pieces.put("n", 0);
-        for(int i = 0; i < board.length; i++) {
-            for(int j = 0; j < board[i].length; j++) {
-                if(board[i][j] == null) continue;
-                if(board[i][j].getCharRepresentation().equals("K")) continue;
-                if("QRP".contains(board[i][j].getCharRepresentation())) return false;
-                String rep = board[i][j].getCharRepresentation();
-                if(board[i][j].getCharRepresentation().equals("B")) {
-                    if(isSquareWhite(i, j))
-                        rep += "W";
-                    else
-                        rep += "B";
-                }
-                if(board[i][j].getCharRepresentation().equals("N")) {
-                    String nRep = (board[i][j].isWhite)?"N":"n";
-                    if(pieces.get(nRep) == 1)
-                        return false;
-                }
-                if(!board[i][j].isWhite)
-                    rep = rep.toLowerCase();
-                try {
-                    pieces.put(rep, pieces.get(rep)+1);
-                } catch(NullPointerException npe) {
-                    throw new NullPointerException(npe.getMessage() + ": " + rep);
-                }
-            }
-        }
-        final boolean noBW = pieces.get("BW") == 0, 
-                noBB = pieces.get("BB") == 0, noN = pieces.get("N") == 0;
-        final boolean nobw = pieces.get("bw") == 0, 
-                nobb = pieces.get("bb") == 0, non = pieces.get("n") == 0;
-        final boolean whiteBare = noBW && noBB && noN;
-        final boolean blackBare = nobw && nobb && non;
-        return (whiteBare && blackBare) || 
-                (noN && non && ((noBB && nobb) || (noBW && nobw))) ||
-                (blackBare && noN && (noBW || noBB)) || 
-                (blackBare && noBB && noBW && pieces.get("N") == 1) || 
-                (whiteBare && non && (nobw || nobb)) || 
-                (whiteBare && nobb && nobw && pieces.get("n") == 1);
+        return bits.insufficientMaterial();
     }
     
     /**
@@ -627,23 +722,32 @@ public class ChessBoard {
      * @return whether there is threefold repetition
      */
     public boolean threeFoldRep() {
-        for(int value : positions.values()) {
-            if(value >= 3)
-                return true;
-        }
-        return false;
+        return repeatedThrice;
     }
     
     /**
-     * Updates positions
-     * @param pos the position to update with
+     * Updates positions and the history
+     * @param hash the Zobrist hash of the position to update with
      */
-    private void updatePos(String pos) {
-        if(positions.containsKey(pos)) {
-            positions.put(pos, positions.get(pos)+1);
-        } else {
-            positions.put(pos, 1);
-        }
+    private void updatePos(long hash) {
+        if(positions.increment(hash) >= 3) repeatedThrice = true;
+        if(historySize == history.length) history = Arrays.copyOf(history, historySize * 2);
+        history[historySize++] = hash;
+    }
+    
+    /**
+     * Copies the Zobrist hashes of the last positions of the game, 
+     * oldest first and ending with the current one<br>
+     * Only the positions reached by movePiece and promotePiece are in the history, 
+     * not those of makeMove
+     * @param hashes where to copy the hashes to
+     * @param max how many positions to copy at most
+     * @return how many hashes were copied
+     */
+    public int getHistory(long[] hashes, int max) {
+        int n = Math.min(max, historySize);
+        System.arraycopy(history, historySize - n, hashes, 0, n);
+        return n;
     }
     
     /**
@@ -672,87 +776,22 @@ public class ChessBoard {
      * @return where all of the pieces are
      */
     public ArrayList<String> findAll(int whichPiece, boolean isWhite) {
-        String representation;
-        switch(whichPiece) {
-            case MoveRecorder.BISHOP:
-                representation = "B";
-                break;
-            case MoveRecorder.KING:
-                representation = "K";
-                break;
-            case MoveRecorder.KNIGHT:
-                representation = "N";
-                break;
-            case MoveRecorder.PAWN:
-                representation = "P";
-                break;
-            case MoveRecorder.QUEEN:
-                representation = "Q";
-                break;
-            case MoveRecorder.ROOK:
-                representation = "R";
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown piece type: " + whichPiece);
-        }
+        if(whichPiece < MoveRecorder.PAWN || whichPiece > MoveRecorder.KING) 
+            throw new IllegalArgumentException("Unknown piece type: " + whichPiece);
         ArrayList<String> output = new ArrayList<>();
-        for(int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                if(board[i][j] == null) continue;
-                if(isWhite == board[i][j].isWhite && board[i][j].getCharRepresentation().equals(representation)) {
-                    output.add(toSquare(i, j));
-                }
-            }
+        for(long pieces = bits.pieces(whichPiece, isWhite); pieces != 0; pieces &= pieces - 1) {
+            output.add(BitBoard.toSquare(Long.numberOfTrailingZeros(pieces)));
         }
         return output;
     }
     
     /**
-     * Refinds both kings.
+     * Determines where a king is
+     * @param isWhite whether the king is white
+     * @return the square the king is on
      */
-    public void resetKingPos() {
-        String bKing = null, wKing = null;
-        OUTER: for(int i = 0; i < board.length; i++) {
-            for(int j = 0; j < board[i].length; j++) {
-                if(board[i][j] == null) continue;
-                if(board[i][j].getCharRepresentation().equals("K")) {
-                    if(board[i][j].isWhite) {
-                        if(wKing == null) {
-                            wKing = toSquare(i, j);
-                        } else {
-                            assert false : "There are two white kings?!";
-                        }
-                    } else {
-                        if(bKing == null) {
-                            bKing = toSquare(i, j);
-                        } else {
-                            assert false : "There are two black kings?!";
-                        }
-                    }
-                    if(wKing != null && bKing != null) break OUTER;
-                }
-            }
-        }
-        if(wKing == null) assert false : "Cannot find white king";
-        if(bKing == null) assert false : "Cannot find black king";
-        kingPos.put(true, wKing);
-        kingPos.put(false, bKing);
-    }
-    
-    /**
-     * Refinds only one king.
-     * @param isWhite whether the king to find again is white
-     */
-    public void resetKingPos(boolean isWhite) {
-        for(int i = 0; i < board.length; i++) {
-            for(int j = 0; j < board[i].length; j++) {
-                if(board[i][j] == null) continue;
-                if(board[i][j].getCharRepresentation().equals("K") && (board[i][j].isWhite == isWhite)) {
-                    kingPos.put(isWhite, toSquare(i, j));
-                    return;
-                }
-            }
-        }
+    public String kingSquare(boolean isWhite) {
+        return BitBoard.toSquare(bits.kingSquare(isWhite));
     }
     
     /**
@@ -856,6 +895,23 @@ public class ChessBoard {
         return board;
     }
 
+    /**
+     * Returns the Zobrist hash of the current position<br>
+     * Kept up to date on every move, see BitBoard.getHash()
+     * @return the Zobrist hash of the current position
+     */
+    public long getHash() {
+        return bits.getHash();
+    }
+
+    /**
+     * Returns the bitboards which mirror the board of AbstractPieces
+     * @return the bitboards which mirror the board
+     */
+    public BitBoard getBitBoard() {
+        return bits;
+    }
+
     /**
      * DO NOT USE OFTEN <br>
      * Sets this board to a new state
@@ -868,6 +924,7 @@ public class ChessBoard {
                 this.board[i][j] = board[i][j];
             }
         }
+        bits.setPieces(this.board);
     }
     
     /**
@@ -901,27 +958,7 @@ public class ChessBoard {
      * @return a miniature of this chess board
      */
     public String miniFEN() {
-        String output = "";
-        for(AbstractPiece[] col : board) {
-            int blanks = 0;
-            for(AbstractPiece piece : col) {
-                if(piece == null) {
-                    blanks++;
-                } else {
-                    if(blanks != 0) {
-                        output += blanks;
-                    }
-                    blanks = 0;
-                    String rep = piece.getCharRepresentation();
-                    if(piece.isWhite) 
-                        output += rep.toUpperCase(); 
-                    else 
-                        output += rep.toLowerCase();
-                }
-            }
-            output += "/";
-        }
-        return output;
+        return bits.miniFEN();
     }
 
     /**
@@ -938,6 +975,7 @@ public class ChessBoard {
      */
     public void setCurrentPlayer(boolean playerIsWhite) {
         this.playerIsWhite = playerIsWhite;
+        bits.setWhiteToMove(playerIsWhite);
     }
     
     /**
@@ -945,10 +983,6 @@ public class ChessBoard {
      * @return how many legal moves there are
      */
     public int numOfLegalMoves() {
-        int output = 0;
-        for(LinkedList<String> value : allLegalMoves.values()) {
-            output += value.size();
-        }
-        return output;
+        return legalMoveCount;
     }
 }
\ No newline at end of file
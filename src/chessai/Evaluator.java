@@ -0,0 +1,142 @@
+package chessai;
+
+/**
+ * A fast static evaluation of a position: material plus piece-square tables<br>
+ * Scores are in centipawns from white's point of view.
+ * The piece-square tables are written from white's side, a8 first,
+ * which matches the BitBoard square numbering; black's are mirrored.
+ * @author Jed Wang
+ */
+public class Evaluator {
+    /**
+     * The value of each type of piece, indexed as in MoveRecorder
+     */
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    /**
+     * How many centipawns make a value of tanh(1), about 0.76
+     */
+    private static final double SCALE = 400;
+
+    /**
+     * The piece-square tables, indexed as in MoveRecorder, then by square
+     */
+    private static final int[][] TABLES = {
+        { // Pawn
+             0,  0,  0,  0,  0,  0,  0,  0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+             5,  5, 10, 25, 25, 10,  5,  5,
+             0,  0,  0, 20, 20,  0,  0,  0,
+             5, -5,-10,  0,  0,-10, -5,  5,
+             5, 10, 10,-20,-20, 10, 10,  5,
+             0,  0,  0,  0,  0,  0,  0,  0
+        },
+        { // Knight
+            -50,-40,-30,-30,-30,-30,-40,-50,
+            -40,-20,  0,  0,  0,  0,-20,-40,
+            -30,  0, 10, 15, 15, 10,  0,-30,
+            -30,  5, 15, 20, 20, 15,  5,-30,
+            -30,  0, 15, 20, 20, 15,  0,-30,
+            -30,  5, 10, 15, 15, 10,  5,-30,
+            -40,-20,  0,  5,  5,  0,-20,-40,
+            -50,-40,-30,-30,-30,-30,-40,-50
+        },
+        { // Bishop
+            -20,-10,-10,-10,-10,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5, 10, 10,  5,  0,-10,
+            -10,  5,  5, 10, 10,  5,  5,-10,
+            -10,  0, 10, 10, 10, 10,  0,-10,
+            -10, 10, 10, 10, 10, 10, 10,-10,
+            -10,  5,  0,  0,  0,  0,  5,-10,
+            -20,-10,-10,-10,-10,-10,-10,-20
+        },
+        { // Rook
+             0,  0,  0,  0,  0,  0,  0,  0,
+             5, 10, 10, 10, 10, 10, 10,  5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+             0,  0,  0,  5,  5,  0,  0,  0
+        },
+        { // Queen
+            -20,-10,-10, -5, -5,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5,  5,  5,  5,  0,-10,
+             -5,  0,  5,  5,  5,  5,  0, -5,
+              0,  0,  5,  5,  5,  5,  0, -5,
+            -10,  5,  5,  5,  5,  5,  0,-10,
+            -10,  0,  5,  0,  0,  0,  0,-10,
+            -20,-10,-10, -5, -5,-10,-10,-20
+        },
+        { // King
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -20,-30,-30,-40,-40,-30,-30,-20,
+            -10,-20,-20,-20,-20,-20,-20,-10,
+             20, 20,  0,  0,  0,  0, 20, 20,
+             20, 30, 10,  0,  0, 10, 30, 20
+        }
+    };
+
+    /**
+     * No instances allowed
+     */
+    private Evaluator() {
+    }
+
+    /**
+     * Evaluates a position
+     * @param bb the position
+     * @return the score in centipawns, positive when white is better
+     */
+    public static int evaluate(BitBoard bb) {
+        int score = 0;
+        for(int type = MoveRecorder.PAWN; type <= MoveRecorder.KING; type++) {
+            int[] table = TABLES[type];
+            int value = PIECE_VALUES[type];
+            for(long b = bb.pieces(type, true); b != 0; b &= b - 1) {
+                score += value + table[Long.numberOfTrailingZeros(b)];
+            }
+            // flipping the row mirrors black onto white's table
+            for(long b = bb.pieces(type, false); b != 0; b &= b - 1) {
+                score -= value + table[Long.numberOfTrailingZeros(b) ^ 56];
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Returns what a piece is worth on a square, to its own side
+     * @param piece the piece number, as in BitBoard
+     * @param square the square
+     * @return the value of the piece plus its piece-square bonus, in centipawns
+     */
+    public static int pieceValue(int piece, int square) {
+        int type = BitBoard.type(piece);
+        return PIECE_VALUES[type] + TABLES[type][(BitBoard.isWhite(piece))?square:square ^ 56];
+    }
+
+    /**
+     * Evaluates a position as a value like the result of a game
+     * @param bb the position
+     * @return a value between -1 and 1, positive when white is better
+     */
+    public static double value(BitBoard bb) {
+        return toValue(evaluate(bb));
+    }
+
+    /**
+     * Maps a score onto the range of game results
+     * @param centipawns the score in centipawns, positive when white is better
+     * @return a value between -1 and 1, positive when white is better
+     */
+    public static double toValue(int centipawns) {
+        return Math.tanh(centipawns / SCALE);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package chessai;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Encodes positions as stacks of 8x8 feature planes, for learned evaluators<br>
+ * <br>
+ * There are PLANES planes of 64 floats each, and the squares of a plane are
+ * numbered as in BitBoard, a8 first. Planes 0 to 11 mark the pieces, one plane
+ * for each piece number. The side-to-move plane is all ones when white is to move.
+ * Each castling plane is all ones while its right is kept. The en passant plane
+ * marks the square a pawn could capture onto en passant. The planes are written
+ * straight from the bitboards, so encoding allocates nothing.
+ * @author Jed Wang
+ */
+public class FeatureEncoder {
+    /**
+     * How many planes there are
+     */
+    public static final int PLANES = 18;
+
+    /**
+     * How many floats one position takes up
+     */
+    public static final int SIZE = PLANES * 64;
+
+    /**
+     * The side-to-move plane
+     */
+    public static final int SIDE_TO_MOVE = 12;
+
+    /**
+     * The first castling plane; they go white kingside, white queenside,
+     * black kingside, black queenside
+     */
+    public static final int CASTLING = 13;
+
+    /**
+     * The en passant plane
+     */
+    public static final int EN_PASSANT = 17;
+
+    /**
+     * No instances allowed
+     */
+    private FeatureEncoder() {
+    }
+
+    /**
+     * Encodes a position into an array
+     * @param bb the position
+     * @param out where to write the planes
+     * @param offset where the first plane starts; SIZE floats are written from here
+     */
+    public static void encode(BitBoard bb, float[] out, int offset) {
+        Arrays.fill(out, offset, offset + SIZE, 0);
+        for(int piece = BitBoard.WHITE_PAWN; piece <= BitBoard.BLACK_KING; piece++) {
+            int plane = offset + piece * 64;
+            for(long b = bb.pieces(piece); b != 0; b &= b - 1) {
+                out[plane + Long.numberOfTrailingZeros(b)] = 1;
+            }
+        }
+        if(bb.isWhiteToMove()) fillPlane(out, offset, SIDE_TO_MOVE);
+        int castling = bb.getCastling();
+        for(int i = 0; i < 4; i++) {
+            // the castling rights are the bits 1, 2, 4 and 8, in the order of the planes
+            if((castling & 1 << i) != 0) fillPlane(out, offset, CASTLING + i);
+        }
+        int enPassant = bb.getEnPassant();
+        if(enPassant != BitBoard.NO_SQUARE) out[offset + EN_PASSANT * 64 + enPassant] = 1;
+    }
+
+    /**
+     * Encodes a position into an array
+     * @param cb the position
+     * @param out where to write the planes
+     * @param offset where the first plane starts; SIZE floats are written from here
+     */
+    public static void encode(ChessBoard cb, float[] out, int offset) {
+        encode(cb.getBitBoard(), out, offset);
+    }
+
+    /**
+     * Encodes a position into a buffer, from its position onward<br>
+     * The buffer's position is moved past the SIZE floats written
+     * @param bb the position
+     * @param out where to write the planes
+     * @param scratch an array of at least SIZE floats to encode into first
+     */
+    public static void encode(BitBoard bb, FloatBuffer out, float[] scratch) {
+        encode(bb, scratch, 0);
+        out.put(scratch, 0, SIZE);
+    }
+
+    /**
+     * Sets every square of a plane to 1
+     * @param out the planes
+     * @param offset where the first plane starts
+     * @param plane which plane
+     */
+    private static void fillPlane(float[] out, int offset, int plane) {
+        int start = offset + plane * 64;
+        Arrays.fill(out, start, start + 64, 1);
+    }
+}
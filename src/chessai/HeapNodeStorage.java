@@ -0,0 +1,260 @@
+package chessai;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the nodes of a NodePool in arrays on the heap, one array per field
+ * @author Jed Wang
+ */
+public class HeapNodeStorage implements NodeStorage {
+    /**
+     * The parent of each node
+     */
+    private final int[] parent;
+
+    /**
+     * The first child of each node
+     */
+    private final AtomicIntegerArray firstChild;
+
+    /**
+     * How many children each node has
+     */
+    private final short[] childCount;
+
+    /**
+     * The move that led to each node
+     */
+    private final int[] move;
+
+    /**
+     * The number of visits of each node
+     */
+    private final AtomicIntegerArray visits;
+
+    /**
+     * The sum of the values backed up through each node,
+     * stored as the bits of doubles so that they can be updated atomically
+     */
+    private final AtomicLongArray valueSums;
+
+    /**
+     * The sum of the squares of the values backed up through each node, as bits
+     */
+    private final AtomicLongArray squareSums;
+
+    /**
+     * The number of AMAF visits of each node
+     */
+    private final AtomicIntegerArray amafVisits;
+
+    /**
+     * The sum of the AMAF values of each node, as bits
+     */
+    private final AtomicLongArray amafValueSums;
+
+    /**
+     * The prior probability of each node
+     */
+    private final float[] priors;
+
+    /**
+     * When each node was last passed through
+     */
+    private final long[] lastVisit;
+
+    /**
+     * The Zobrist hash of the position at each node
+     */
+    private final long[] hashes;
+
+    /**
+     * Creates the arrays
+     * @param capacity how many nodes can be stored
+     */
+    public HeapNodeStorage(int capacity) {
+        if(capacity <= 0) throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        parent = new int[capacity];
+        firstChild = new AtomicIntegerArray(capacity);
+        childCount = new short[capacity];
+        move = new int[capacity];
+        visits = new AtomicIntegerArray(capacity);
+        valueSums = new AtomicLongArray(capacity);
+        squareSums = new AtomicLongArray(capacity);
+        amafVisits = new AtomicIntegerArray(capacity);
+        amafValueSums = new AtomicLongArray(capacity);
+        priors = new float[capacity];
+        lastVisit = new long[capacity];
+        hashes = new long[capacity];
+    }
+
+    @Override
+    public int capacity() {
+        return parent.length;
+    }
+
+    @Override
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    @Override
+    public void setParent(int node, int parent) {
+        this.parent[node] = parent;
+    }
+
+    @Override
+    public int getFirstChild(int node) {
+        return firstChild.get(node);
+    }
+
+    @Override
+    public void setFirstChild(int node, int firstChild) {
+        this.firstChild.set(node, firstChild);
+    }
+
+    @Override
+    public boolean compareAndSetFirstChild(int node, int expect, int firstChild) {
+        return this.firstChild.compareAndSet(node, expect, firstChild);
+    }
+
+    @Override
+    public int getChildCount(int node) {
+        return childCount[node];
+    }
+
+    @Override
+    public void setChildCount(int node, int childCount) {
+        this.childCount[node] = (short)childCount;
+    }
+
+    @Override
+    public int getMove(int node) {
+        return move[node];
+    }
+
+    @Override
+    public void setMove(int node, int move) {
+        this.move[node] = move;
+    }
+
+    @Override
+    public int getVisits(int node) {
+        return visits.get(node);
+    }
+
+    @Override
+    public void setVisits(int node, int visits) {
+        this.visits.set(node, visits);
+    }
+
+    @Override
+    public void addVisits(int node, int visits) {
+        this.visits.addAndGet(node, visits);
+    }
+
+    @Override
+    public double getValueSum(int node) {
+        return Double.longBitsToDouble(valueSums.get(node));
+    }
+
+    @Override
+    public void setValueSum(int node, double valueSum) {
+        valueSums.set(node, Double.doubleToRawLongBits(valueSum));
+    }
+
+    @Override
+    public void addValueSum(int node, double value) {
+        add(valueSums, node, value);
+    }
+
+    @Override
+    public double getSquareSum(int node) {
+        return Double.longBitsToDouble(squareSums.get(node));
+    }
+
+    @Override
+    public void setSquareSum(int node, double squareSum) {
+        squareSums.set(node, Double.doubleToRawLongBits(squareSum));
+    }
+
+    @Override
+    public void addSquareSum(int node, double square) {
+        add(squareSums, node, square);
+    }
+
+    @Override
+    public int getAmafVisits(int node) {
+        return amafVisits.get(node);
+    }
+
+    @Override
+    public void setAmafVisits(int node, int visits) {
+        amafVisits.set(node, visits);
+    }
+
+    @Override
+    public void addAmafVisits(int node, int visits) {
+        amafVisits.addAndGet(node, visits);
+    }
+
+    @Override
+    public double getAmafValueSum(int node) {
+        return Double.longBitsToDouble(amafValueSums.get(node));
+    }
+
+    @Override
+    public void setAmafValueSum(int node, double valueSum) {
+        amafValueSums.set(node, Double.doubleToRawLongBits(valueSum));
+    }
+
+    @Override
+    public void addAmafValueSum(int node, double value) {
+        add(amafValueSums, node, value);
+    }
+
+    @Override
+    public float getPrior(int node) {
+        return priors[node];
+    }
+
+    @Override
+    public void setPrior(int node, float prior) {
+        priors[node] = prior;
+    }
+
+    @Override
+    public long getLastVisit(int node) {
+        return lastVisit[node];
+    }
+
+    @Override
+    public void setLastVisit(int node, long time) {
+        lastVisit[node] = time;
+    }
+
+    @Override
+    public long getHash(int node) {
+        return hashes[node];
+    }
+
+    @Override
+    public void setHash(int node, long hash) {
+        hashes[node] = hash;
+    }
+
+    /**
+     * Adds to a double stored as bits, atomically
+     * @param sums the doubles
+     * @param node which double
+     * @param value how much to add
+     */
+    private static void add(AtomicLongArray sums, int node, double value) {
+        long current, next;
+        do {
+            current = sums.get(node);
+            next = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value);
+        } while(!sums.compareAndSet(node, current, next));
+    }
+}
\ No newline at end of file
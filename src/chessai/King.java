@@ -14,12 +14,13 @@ import javax.imageio.ImageIO;
 public class King extends AbstractPiece {
     
     /**
-     * Whether this king has moved before - used to check castling
+     * Whether this king has moved before<br>
+     * Castling itself goes by the castling rights kept by the ChessBoard
      */
     private boolean moved = false;
     
     /**
-     * Whether this king is in check - used to do castling
+     * Whether this king is in check
      */
     private boolean inCheck = false;
 
@@ -31,57 +32,9 @@ public class King extends AbstractPiece {
     public LinkedList<String> allLegalMoves(ChessBoard cb, String currentPosition) {
         if(!ChessBoard.isValidSquare(currentPosition)) throw new IllegalArgumentException("Invalid square");
         if(!(cb.getPiece(currentPosition).getCharRepresentation().equals("K"))) throw new IllegalArgumentException("This isn\'t a king!");
-        LinkedList<String> output = new LinkedList<>();
-        String temp;
-        for(int i = -1; i <= 1; i++) {
-            for(int j = -1; j <= 1; j++) {
-                if(i == 0 && j == 0) continue;
-                if(ChessBoard.isValidShift(currentPosition, i, j)) {
-                    temp = ChessBoard.shiftSquare(currentPosition, i, j);
-                    if(ChessBoard.isValidSquare(temp)) {
-                        if(cb.isEmptySquare(temp)) {
-                            output.add(temp);
-                        } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                            output.add(temp);
-                        }
-                    }
-                }
-            }
-        }
-        
-        // CASTLING
-        if(!moved && !inCheck) {
-            // white on 7, black on 0
-            int row = (isWhite)?7:0;
-            
-            boolean canQ = true, canK = true;
-            for(int i = 0; i < cb.getBoard().length; i++) {
-                for(int j = 0; j < cb.getBoard()[i].length; j++) {
-                    AbstractPiece ap = cb.getPiece(i, j);
-                    if(ap == null) continue;
-                    if((ap.isWhite == isWhite) || (ap.getCharRepresentation().equals("K"))) continue;
-                    String fromWhere = ChessBoard.toSquare(i, j);
-                    if(ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(1, row)) || 
-                            ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(2, row)) ||
-                            ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(3, row))) {
-                        canQ = false;
-                    }
-                    if(ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(5, row)) ||
-                            ap.isAllLegalMove(cb, fromWhere, ChessBoard.toSquare(6, row))) {
-                        canK = false;
-                    }
-                }
-            }
-            // 1, 2, 3, Queenside
-            if(cb.isEmptySquare(1, row) && cb.isEmptySquare(2, row) && cb.isEmptySquare(3, row) && canQ) {
-                output.add(ChessBoard.shiftSquare(currentPosition, -2, 0));
-            }
-            // 5, 6, Kingside
-            if(cb.isEmptySquare(5, row) && cb.isEmptySquare(6, row) && canK) {
-                output.add(ChessBoard.shiftSquare(currentPosition, 2, 0));
-            }
-        }
-        return output;
+        // castling goes by the castling rights, and is left out when the king 
+        // is in check or would pass through an attacked square
+        return generatedMoves(cb, currentPosition);
     }
 
     @Override
@@ -267,6 +220,11 @@ public class King extends AbstractPiece {
 //    }
 //</editor-fold>
 
+    @Override
+    public int getType() {
+        return MoveRecorder.KING;
+    }
+
     @Override
     public String getCharRepresentation() {
         return "K";
@@ -21,89 +21,7 @@ public class Knight extends AbstractPiece {
     public LinkedList<String> allLegalMoves(ChessBoard cb, String currentPosition) {
         if(!ChessBoard.isValidSquare(currentPosition)) throw new IllegalArgumentException("Invalid square");
         if(!(cb.getPiece(currentPosition).getCharRepresentation().equals("N"))) throw new IllegalArgumentException("This isn\'t a knight!");
-        LinkedList<String> output = new LinkedList<>();
-        String temp;
-        if(ChessBoard.isValidShift(currentPosition, -2, -1)) {
-            temp = ChessBoard.shiftSquare(currentPosition, -2, -1);
-            if(ChessBoard.isValidSquare(temp)) {
-                if(cb.isEmptySquare(temp)) {
-                    output.add(temp);
-                } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                    output.add(temp);
-                }
-            }
-        }
-        if(ChessBoard.isValidShift(currentPosition, -2, 1)) {
-            temp = ChessBoard.shiftSquare(currentPosition, -2, 1);
-            if(ChessBoard.isValidSquare(temp)) {
-                if(cb.isEmptySquare(temp)) {
-                    output.add(temp);
-                } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                    output.add(temp);
-                }
-            }
-        }
-        if(ChessBoard.isValidShift(currentPosition, 2, -1)) {
-            temp = ChessBoard.shiftSquare(currentPosition, 2, -1);
-            if(ChessBoard.isValidSquare(temp)) {
-                if(cb.isEmptySquare(temp)) {
-                    output.add(temp);
-                } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                    output.add(temp);
-                }
-            }
-        }
-        if(ChessBoard.isValidShift(currentPosition, 2, 1)) {
-            temp = ChessBoard.shiftSquare(currentPosition, 2, 1);
-            if(ChessBoard.isValidSquare(temp)) {
-                if(cb.isEmptySquare(temp)) {
-                    output.add(temp);
-                } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                    output.add(temp);
-                }
-            }
-        }
-        if(ChessBoard.isValidShift(currentPosition, 1, -2)) {
-            temp = ChessBoard.shiftSquare(currentPosition, 1, -2);
-            if(ChessBoard.isValidSquare(temp)) {
-                if(cb.isEmptySquare(temp)) {
-                    output.add(temp);
-                } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                    output.add(temp);
-                }
-            }
-        }
-        if(ChessBoard.isValidShift(currentPosition, -1, -2)) {
-            temp = ChessBoard.shiftSquare(currentPosition, -1, -2);
-            if(ChessBoard.isValidSquare(temp)) {
-                if(cb.isEmptySquare(temp)) {
-                    output.add(temp);
-                } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                    output.add(temp);
-                }
-            }
-        }
-        if(ChessBoard.isValidShift(currentPosition, 1, 2)) {
-            temp = ChessBoard.shiftSquare(currentPosition, 1, 2);
-            if(ChessBoard.isValidSquare(temp)) {
-                if(cb.isEmptySquare(temp)) {
-                    output.add(temp);
-                } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                    output.add(temp);
-                }
-            }
-        }
-        if(ChessBoard.isValidShift(currentPosition, -1, 2)) {
-            temp = ChessBoard.shiftSquare(currentPosition, -1, 2);
-            if(ChessBoard.isValidSquare(temp)) {
-                if(cb.isEmptySquare(temp)) {
-                    output.add(temp);
-                } else if(cb.getPiece(temp).isWhite ^ isWhite) {
-                    output.add(temp);
-                }
-            }
-        }
-        return output;
+        return generatedMoves(cb, currentPosition);
     }
 
     @Override
@@ -178,6 +96,11 @@ public class Knight extends AbstractPiece {
 //    }
 //</editor-fold>
 
+    @Override
+    public int getType() {
+        return MoveRecorder.KNIGHT;
+    }
+
     @Override
     public String getCharRepresentation() {
         return "N";
@@ -0,0 +1,167 @@
+package chessai;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A leaf position waiting to be evaluated by a LeafEvaluator<br>
+ * The evaluator sets the value of the position and the prior of each
+ * of its legal moves. Each search thread keeps and reuses its own Leaf.
+ * @author Jed Wang
+ */
+public class Leaf {
+    /**
+     * The position
+     */
+    private final BitBoard board = new BitBoard();
+
+    /**
+     * The legal moves of the position
+     */
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * The prior probability of each legal move
+     */
+    private final float[] priors = new float[MoveGenerator.MAX_MOVES];
+
+    /**
+     * How many legal moves there are
+     */
+    private int moveCount = 0;
+
+    /**
+     * The value of the position, from white's side
+     */
+    private double value = 0;
+
+    /**
+     * The thread waiting for the evaluation
+     */
+    private Thread waiter;
+
+    /**
+     * Why the evaluation failed, if it did
+     */
+    private Throwable error;
+
+    /**
+     * Set once the evaluation is over
+     */
+    private volatile boolean done = false;
+
+    /**
+     * Sets up the leaf to be evaluated, with all the priors the same
+     * @param position the position, which is copied
+     * @param moves the legal moves of the position, encoded as in Move
+     * @param count how many legal moves there are
+     */
+    public void set(BitBoard position, int[] moves, int count) {
+        board.copyFrom(position);
+        System.arraycopy(moves, 0, this.moves, 0, count);
+        moveCount = count;
+        for(int i = 0; i < count; i++) {
+            priors[i] = 1f / count;
+        }
+        value = 0;
+    }
+
+    /**
+     * Returns the position
+     * @return the position, which should not be changed
+     */
+    public BitBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Returns how many legal moves the position has
+     * @return how many legal moves the position has
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns one of the legal moves of the position
+     * @param i which move
+     * @return the move, encoded as in Move
+     */
+    public int getMove(int i) {
+        if(i < 0 || i >= moveCount) throw new IndexOutOfBoundsException(i + "");
+        return moves[i];
+    }
+
+    /**
+     * Returns the value of the position
+     * @return a value between -1 and 1, positive when white is better
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Sets the value of the position
+     * @param value a value between -1 and 1, positive when white is better
+     */
+    public void setValue(double value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns how likely one of the legal moves is thought to be best
+     * @param i which move
+     * @return the prior probability
+     */
+    public float getPrior(int i) {
+        if(i < 0 || i >= moveCount) throw new IndexOutOfBoundsException(i + "");
+        return priors[i];
+    }
+
+    /**
+     * Sets how likely one of the legal moves is thought to be best
+     * @param i which move
+     * @param prior the prior probability
+     */
+    public void setPrior(int i, float prior) {
+        if(i < 0 || i >= moveCount) throw new IndexOutOfBoundsException(i + "");
+        priors[i] = prior;
+    }
+
+    /**
+     * Returns the priors of every legal move, in order
+     * @return the priors, which should not be changed
+     */
+    float[] getPriors() {
+        return priors;
+    }
+
+    /**
+     * Readies the leaf to be waited for by the current thread
+     */
+    void prepare() {
+        waiter = Thread.currentThread();
+        error = null;
+        done = false;
+    }
+
+    /**
+     * Ends the evaluation and wakes up the thread waiting for it
+     * @param error why the evaluation failed, or null if it did not
+     */
+    void finish(Throwable error) {
+        this.error = error;
+        done = true;
+        LockSupport.unpark(waiter);
+    }
+
+    /**
+     * Waits until the evaluation is over
+     * @throws IllegalStateException if the evaluation failed
+     */
+    void await() {
+        while(!done) {
+            LockSupport.park(this);
+        }
+        if(error != null) throw new IllegalStateException("Leaf evaluation failed", error);
+    }
+}
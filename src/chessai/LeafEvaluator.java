@@ -0,0 +1,15 @@
+package chessai;
+
+/**
+ * Evaluates leaf positions for a Monte Carlo tree search, a batch at a time<br>
+ * Only ever called by the thread of one BatchEvaluator, so it need not be thread-safe.
+ * @author Jed Wang
+ */
+public interface LeafEvaluator {
+    /**
+     * Sets the value of each leaf and the prior of each of its legal moves
+     * @param leaves the leaves
+     * @param count how many of the leaves to evaluate
+     */
+    void evaluate(Leaf[] leaves, int count);
+}
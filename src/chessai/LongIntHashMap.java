@@ -0,0 +1,170 @@
+package chessai;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from longs to ints which does not box its keys or values<br>
+ * Meant to be keyed by Zobrist hashes, which are random enough
+ * to be used as indices directly. Uses open addressing with linear probing.
+ * @author Jed Wang
+ */
+public class LongIntHashMap {
+    /**
+     * The keys, 0 stands for an empty slot
+     */
+    private long[] keys;
+
+    /**
+     * The values, indexed like keys
+     */
+    private int[] values;
+
+    /**
+     * Whether the key 0 is in the map, since 0 marks empty slots
+     */
+    private boolean hasZeroKey = false;
+
+    /**
+     * The value of the key 0
+     */
+    private int zeroValue = 0;
+
+    /**
+     * How many keys are in the map
+     */
+    private int size = 0;
+
+    /**
+     * Default constructor.
+     */
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * Creates a map with room for some keys
+     * @param capacity how many keys the map should hold before growing
+     */
+    public LongIntHashMap(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1);
+        keys = new long[slots];
+        values = new int[slots];
+    }
+
+    /**
+     * Constructor from a previous LongIntHashMap
+     * @param map the LongIntHashMap to duplicate
+     */
+    public LongIntHashMap(LongIntHashMap map) {
+        keys = map.keys.clone();
+        values = map.values.clone();
+        hasZeroKey = map.hasZeroKey;
+        zeroValue = map.zeroValue;
+        size = map.size;
+    }
+
+    /**
+     * Returns the value of a key
+     * @param key the key
+     * @return the value of the key, or 0 if it is not in the map
+     */
+    public int get(long key) {
+        if(key == 0) return zeroValue;
+        int slot = find(key);
+        return (keys[slot] == 0)?0:values[slot];
+    }
+
+    /**
+     * Determines whether a key is in the map
+     * @param key the key
+     * @return whether the key is in the map
+     */
+    public boolean containsKey(long key) {
+        if(key == 0) return hasZeroKey;
+        return keys[find(key)] != 0;
+    }
+
+    /**
+     * Sets the value of a key
+     * @param key the key
+     * @param value the value
+     */
+    public void put(long key, int value) {
+        if(key == 0) {
+            if(!hasZeroKey) size++;
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = find(key);
+        if(keys[slot] == 0) {
+            keys[slot] = key;
+            size++;
+            values[slot] = value;
+            // keep at most half of the slots full, so probes stay short
+            if(size * 2 > keys.length) grow();
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * Adds 1 to the value of a key, adding the key if it is not in the map
+     * @param key the key
+     * @return the new value of the key
+     */
+    public int increment(long key) {
+        int value = get(key) + 1;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Returns how many keys are in the map
+     * @return how many keys are in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every key
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    /**
+     * Finds the slot holding a key, or the empty slot where it would go
+     * @param key the key, not 0
+     * @return the slot
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = (int)(key ^ (key >>> 32)) & mask;
+        while(keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the number of slots and puts every key back
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
\ No newline at end of file
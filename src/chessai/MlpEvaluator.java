@@ -0,0 +1,182 @@
+package chessai;
+
+import java.util.SplittableRandom;
+
+/**
+ * A tiny multilayer perceptron with a value head and a policy head<br>
+ * <br>
+ * Each batch is encoded by the FeatureEncoder into one tensor of
+ * FeatureEncoder.SIZE floats per leaf. One hidden layer of rectified linear
+ * units feeds a value output, squashed by tanh, and a logit for every pair
+ * of squares; the priors are a softmax over the logits of the legal moves,
+ * so promotions on the same squares share one. The weights are random,
+ * from a fixed seed, so this is for testing the pipeline, not for playing.
+ * Most inputs are 0, so the hidden layer is found by adding up the
+ * weights of the inputs which are not rather than by a full product.
+ * @author Jed Wang
+ */
+public class MlpEvaluator implements LeafEvaluator {
+    /**
+     * How many inputs there are
+     */
+    public static final int INPUTS = FeatureEncoder.SIZE;
+
+    /**
+     * How many hidden units there are when no number is given
+     */
+    public static final int DEFAULT_HIDDEN = 32;
+
+    /**
+     * How many policy outputs there are, one for each pair of squares
+     */
+    private static final int POLICY_OUTPUTS = 64 * 64;
+
+    /**
+     * How many hidden units there are
+     */
+    private final int hidden;
+
+    /**
+     * The input weights, one row of hidden weights for each input
+     */
+    private final float[] inputWeights;
+
+    /**
+     * The biases of the hidden units
+     */
+    private final float[] hiddenBiases;
+
+    /**
+     * The weights of the value output
+     */
+    private final float[] valueWeights;
+
+    /**
+     * The bias of the value output
+     */
+    private final float valueBias;
+
+    /**
+     * The policy weights, one row of hidden weights for each pair of squares
+     */
+    private final float[] policyWeights;
+
+    /**
+     * The encoded batch, one position after another
+     */
+    private float[] inputs = new float[0];
+
+    /**
+     * The hidden layer, reused for every leaf
+     */
+    private final float[] activations;
+
+    /**
+     * The logits of the legal moves, reused for every leaf
+     */
+    private final float[] logits = new float[MoveGenerator.MAX_MOVES];
+
+    /**
+     * Default constructor.
+     */
+    public MlpEvaluator() {
+        this(DEFAULT_HIDDEN, 0x5EED_C4E55L);
+    }
+
+    /**
+     * Creates a network with random weights
+     * @param hidden how many hidden units there are
+     * @param seed the seed of the random weights
+     */
+    public MlpEvaluator(int hidden, long seed) {
+        if(hidden <= 0) throw new IllegalArgumentException("Invalid number of hidden units: " + hidden);
+        this.hidden = hidden;
+        SplittableRandom random = new SplittableRandom(seed);
+        // a few hundred inputs are set at once, so scale as if there were that many
+        inputWeights = randomWeights(random, INPUTS * hidden, 1 / Math.sqrt(256));
+        hiddenBiases = new float[hidden];
+        valueWeights = randomWeights(random, hidden, 1 / Math.sqrt(hidden));
+        valueBias = 0;
+        policyWeights = randomWeights(random, POLICY_OUTPUTS * hidden, 1 / Math.sqrt(hidden));
+        activations = new float[hidden];
+    }
+
+    /**
+     * Makes weights drawn evenly from a range around 0
+     * @param random where the weights come from
+     * @param n how many weights to make
+     * @param scale the largest weight
+     * @return the weights
+     */
+    private static float[] randomWeights(SplittableRandom random, int n, double scale) {
+        float[] weights = new float[n];
+        for(int i = 0; i < n; i++) {
+            weights[i] = (float)((random.nextDouble() * 2 - 1) * scale);
+        }
+        return weights;
+    }
+
+    @Override
+    public void evaluate(Leaf[] leaves, int count) {
+        if(inputs.length < count * INPUTS) inputs = new float[count * INPUTS];
+        for(int i = 0; i < count; i++) {
+            FeatureEncoder.encode(leaves[i].getBoard(), inputs, i * INPUTS);
+        }
+        for(int i = 0; i < count; i++) {
+            evaluate(leaves[i], i * INPUTS);
+        }
+    }
+
+    /**
+     * Evaluates one leaf
+     * @param leaf the leaf
+     * @param offset where the leaf's inputs start
+     */
+    private void evaluate(Leaf leaf, int offset) {
+        System.arraycopy(hiddenBiases, 0, activations, 0, hidden);
+        for(int input = 0; input < INPUTS; input++) {
+            float x = inputs[offset + input];
+            if(x == 0) continue;
+            int row = input * hidden;
+            for(int h = 0; h < hidden; h++) {
+                activations[h] += x * inputWeights[row + h];
+            }
+        }
+
+        double value = valueBias;
+        for(int h = 0; h < hidden; h++) {
+            if(activations[h] < 0) activations[h] = 0;
+            value += activations[h] * valueWeights[h];
+        }
+        leaf.setValue(Math.tanh(value));
+
+        int n = leaf.getMoveCount();
+        float max = Float.NEGATIVE_INFINITY;
+        for(int i = 0; i < n; i++) {
+            int move = leaf.getMove(i);
+            int row = (Move.from(move) * 64 + Move.to(move)) * hidden;
+            float logit = 0;
+            for(int h = 0; h < hidden; h++) {
+                logit += activations[h] * policyWeights[row + h];
+            }
+            logits[i] = logit;
+            if(logit > max) max = logit;
+        }
+        float sum = 0;
+        for(int i = 0; i < n; i++) {
+            logits[i] = (float)Math.exp(logits[i] - max);
+            sum += logits[i];
+        }
+        for(int i = 0; i < n; i++) {
+            leaf.setPrior(i, logits[i] / sum);
+        }
+    }
+
+    /**
+     * Returns how many hidden units there are
+     * @return how many hidden units there are
+     */
+    public int getHidden() {
+        return hidden;
+    }
+}
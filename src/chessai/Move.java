@@ -0,0 +1,172 @@
+package chessai;
+
+/**
+ * Encodes moves as ints, so that moves can be generated without allocating anything<br>
+ * <br>
+ * The bits are laid out as such:<br>
+ * 0-5: the square moved from<br>
+ * 6-11: the square moved to<br>
+ * 12-14: the piece promoted to, as in MoveRecorder (0 for no promotion)<br>
+ * 15-18: the flags<br>
+ * <br>
+ * Squares are numbered as in BitBoard.
+ * @author Jed Wang
+ */
+public class Move {
+    /**
+     * Represents no move at all
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The move captures a piece
+     */
+    public static final int CAPTURE = 1 << 15;
+
+    /**
+     * The move is a pawn moving two squares
+     */
+    public static final int DOUBLE_PUSH = 1 << 16;
+
+    /**
+     * The move captures en passant
+     */
+    public static final int EN_PASSANT = 1 << 17;
+
+    /**
+     * The move is castling
+     */
+    public static final int CASTLING = 1 << 18;
+
+    /**
+     * No instances allowed
+     */
+    private Move() {
+    }
+
+    /**
+     * Encodes a move
+     * @param from the square moved from
+     * @param to the square moved to
+     * @return the encoded move
+     */
+    public static int create(int from, int to) {
+        return from | (to << 6);
+    }
+
+    /**
+     * Encodes a move
+     * @param from the square moved from
+     * @param to the square moved to
+     * @param flags the flags of the move
+     * @return the encoded move
+     */
+    public static int create(int from, int to, int flags) {
+        return from | (to << 6) | flags;
+    }
+
+    /**
+     * Encodes a promotion
+     * @param from the square moved from
+     * @param to the square moved to
+     * @param promotion the piece promoted to, as in MoveRecorder
+     * @param flags the flags of the move
+     * @return the encoded move
+     */
+    public static int create(int from, int to, int promotion, int flags) {
+        return from | (to << 6) | (promotion << 12) | flags;
+    }
+
+    /**
+     * Determines the square a move is from
+     * @param move the encoded move
+     * @return the square moved from
+     */
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    /**
+     * Determines the square a move is to
+     * @param move the encoded move
+     * @return the square moved to
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * Determines the piece a move promotes to
+     * @param move the encoded move
+     * @return the piece promoted to, as in MoveRecorder, or 0 if there is none
+     */
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    /**
+     * Determines whether a move is a promotion
+     * @param move the encoded move
+     * @return whether the move is a promotion
+     */
+    public static boolean isPromotion(int move) {
+        return promotion(move) != 0;
+    }
+
+    /**
+     * Determines whether a move captures a piece, including en passant
+     * @param move the encoded move
+     * @return whether the move is a capture
+     */
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * Determines whether a move captures en passant
+     * @param move the encoded move
+     * @return whether the move is an en passant capture
+     */
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    /**
+     * Determines whether a move is castling
+     * @param move the encoded move
+     * @return whether the move is castling
+     */
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    /**
+     * Determines whether a move is a pawn moving two squares
+     * @param move the encoded move
+     * @return whether the move is a double pawn push
+     */
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * Creates a String that represents a move, such as "e2e4" or "e7e8q"
+     * @param move the encoded move
+     * @return a String that represents the move
+     */
+    public static String toString(int move) {
+        String output = BitBoard.toSquare(from(move)) + BitBoard.toSquare(to(move));
+        switch(promotion(move)) {
+            case MoveRecorder.KNIGHT:
+                return output + "n";
+            case MoveRecorder.BISHOP:
+                return output + "b";
+            case MoveRecorder.ROOK:
+                return output + "r";
+            case MoveRecorder.QUEEN:
+                return output + "q";
+            default:
+                return output;
+        }
+    }
+}
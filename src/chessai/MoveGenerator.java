@@ -0,0 +1,373 @@
+package chessai;
+
+/**
+ * Generates moves for a BitBoard as ints (see Move) into a caller-supplied buffer<br>
+ * Nothing is allocated while generating.
+ * @author Jed Wang
+ */
+public class MoveGenerator {
+    /**
+     * The most moves any chess position can have, rounded up.<br>
+     * A buffer of this size is always big enough for one position.
+     */
+    public static final int MAX_MOVES = 256;
+
+    /**
+     * The pieces pawns may promote to, in the order they are generated
+     */
+    private static final int[] PROMOTIONS = {
+        MoveRecorder.QUEEN, MoveRecorder.ROOK, MoveRecorder.BISHOP, MoveRecorder.KNIGHT
+    };
+
+    /**
+     * The ABSOLUTE row 5, where white pawns land after one step
+     */
+    private static final long ROW_5 = Attacks.ROW_0 << 40;
+
+    /**
+     * The ABSOLUTE row 2, where black pawns land after one step
+     */
+    private static final long ROW_2 = Attacks.ROW_0 << 16;
+
+    /**
+     * No instances allowed
+     */
+    private MoveGenerator() {
+    }
+
+    /**
+     * Generates every pseudo-legal move for the side to move
+     * @param bb the position
+     * @param moves the buffer to fill, starting from index 0
+     * @return how many moves were generated
+     */
+    public static int generate(BitBoard bb, int[] moves) {
+        return generate(bb, moves, 0);
+    }
+
+    /**
+     * Generates every pseudo-legal move for the side to move<br>
+     * Pseudo-legal moves may leave the king in check.
+     * Castling is only generated when it is legal.
+     * @param bb the position
+     * @param moves the buffer to fill
+     * @param start the index to start filling from
+     * @return the index after the last move generated
+     */
+    public static int generate(BitBoard bb, int[] moves, int start) {
+        return generate(bb, moves, start, bb.isWhiteToMove(), -1L);
+    }
+
+    /**
+     * Generates every pseudo-legal move of the piece on one square,
+     * whether or not it is that piece's turn
+     * @param bb the position
+     * @param square the square of the piece
+     * @param moves the buffer to fill
+     * @param start the index to start filling from
+     * @return the index after the last move generated
+     */
+    public static int generate(BitBoard bb, int square, int[] moves, int start) {
+        int piece = bb.pieceAt(square);
+        if(piece == BitBoard.EMPTY) return start;
+        return generate(bb, moves, start, BitBoard.isWhite(piece), 1L << square);
+    }
+
+    /**
+     * Generates every legal move for the side to move
+     * @param bb the position
+     * @param moves the buffer to fill, starting from index 0
+     * @return how many moves were generated
+     */
+    public static int generateLegal(BitBoard bb, int[] moves) {
+        return generateLegal(bb, moves, 0, -1L);
+    }
+
+    /**
+     * Generates every legal move for the side to move<br>
+     * The pieces giving check and the pinned pieces are worked out once,
+     * so only legal moves are generated and no move has to be tried out.
+     * @param bb the position
+     * @param moves the buffer to fill
+     * @param start the index to start filling from
+     * @return the index after the last move generated
+     */
+    public static int generateLegal(BitBoard bb, int[] moves, int start) {
+        return generateLegal(bb, moves, start, -1L);
+    }
+
+    /**
+     * Generates every legal move of the piece on one square<br>
+     * Nothing is generated unless it is that piece's turn.
+     * @param bb the position
+     * @param square the square of the piece
+     * @param moves the buffer to fill
+     * @param start the index to start filling from
+     * @return the index after the last move generated
+     */
+    public static int generateLegal(BitBoard bb, int square, int[] moves, int start) {
+        int piece = bb.pieceAt(square);
+        if(piece == BitBoard.EMPTY || BitBoard.isWhite(piece) != bb.isWhiteToMove()) return start;
+        return generateLegal(bb, moves, start, 1L << square);
+    }
+
+    /**
+     * Generates the pseudo-legal moves of one side
+     * @param bb the position
+     * @param moves the buffer to fill
+     * @param start the index to start filling from
+     * @param isWhite which side to generate moves for
+     * @param fromMask only pieces on these squares are moved
+     * @return the index after the last move generated
+     */
+    private static int generate(BitBoard bb, int[] moves, int start,
+            boolean isWhite, long fromMask) {
+        long own = bb.occupancy(isWhite), enemy = bb.occupancy(!isWhite);
+        long occupied = own | enemy;
+        long pawns = bb.pieces(MoveRecorder.PAWN, isWhite) & fromMask;
+        int n = generatePawnMoves(moves, start, isWhite, pawns, enemy, ~occupied, -1L);
+        int ep = bb.getEnPassant();
+        if(ep != BitBoard.NO_SQUARE) {
+            // the pawns which could capture onto ep are the ones an enemy pawn on ep would attack
+            for(long b = Attacks.pawn(ep, !isWhite) & pawns; b != 0; b &= b - 1) {
+                moves[n++] = Move.create(Long.numberOfTrailingZeros(b), ep,
+                        Move.CAPTURE | Move.EN_PASSANT);
+            }
+        }
+        n = generatePieceMoves(bb, moves, n, isWhite, fromMask, ~own, enemy, occupied);
+        for(long b = bb.pieces(MoveRecorder.KING, isWhite) & fromMask; b != 0; b &= b - 1) {
+            int king = Long.numberOfTrailingZeros(b);
+            n = addMoves(moves, n, king, Attacks.king(king) & ~own, enemy);
+            n = generateCastling(bb, moves, n, isWhite, occupied);
+        }
+        return n;
+    }
+
+    /**
+     * Generates the legal moves of the side to move
+     * @param bb the position
+     * @param moves the buffer to fill
+     * @param start the index to start filling from
+     * @param fromMask only pieces on these squares are moved
+     * @return the index after the last move generated
+     */
+    private static int generateLegal(BitBoard bb, int[] moves, int start, long fromMask) {
+        boolean isWhite = bb.isWhiteToMove();
+        int king = bb.kingSquare(isWhite);
+        // without a king nothing can be in check, so every move is legal
+        if(king == BitBoard.NO_SQUARE) return generate(bb, moves, start, isWhite, fromMask);
+        long own = bb.occupancy(isWhite), enemy = bb.occupancy(!isWhite);
+        long occupied = own | enemy, kingBit = 1L << king;
+        int n = start;
+
+        // the king is taken off the board, so it can't hide behind itself from a slider
+        if((fromMask & kingBit) != 0) {
+            for(long b = Attacks.king(king) & ~own; b != 0; b &= b - 1) {
+                int to = Long.numberOfTrailingZeros(b);
+                if(bb.attackersOf(to, !isWhite, occupied ^ kingBit) == 0) {
+                    moves[n++] = Move.create(king, to, ((enemy & (b & -b)) != 0)?Move.CAPTURE:0);
+                }
+            }
+        }
+        long checkers = bb.attackersOf(king, !isWhite, occupied);
+        // in double check, only the king can move
+        if((checkers & (checkers - 1)) != 0) return n;
+
+        // in check, every other move has to capture the checker or block it
+        long checkMask = -1L;
+        if(checkers != 0) {
+            checkMask = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+        } else if((fromMask & kingBit) != 0) {
+            n = generateCastling(bb, moves, n, isWhite, occupied);
+        }
+
+        // a piece alone between the king and an enemy slider is pinned
+        long queens = bb.pieces(MoveRecorder.QUEEN, !isWhite);
+        long snipers = (Attacks.rook(king, enemy) & (bb.pieces(MoveRecorder.ROOK, !isWhite) | queens))
+                | (Attacks.bishop(king, enemy) & (bb.pieces(MoveRecorder.BISHOP, !isWhite) | queens));
+        long pinned = 0;
+        for(long b = snipers; b != 0; b &= b - 1) {
+            long between = Attacks.between(king, Long.numberOfTrailingZeros(b)) & occupied;
+            if(between != 0 && (between & (between - 1)) == 0) pinned |= between & own;
+        }
+
+        long pawns = bb.pieces(MoveRecorder.PAWN, isWhite) & fromMask;
+        n = generatePawnMoves(moves, n, isWhite, pawns & ~pinned, enemy, ~occupied, checkMask);
+        n = generatePieceMoves(bb, moves, n, isWhite, fromMask & ~pinned,
+                ~own & checkMask, enemy, occupied);
+
+        // pinned pieces may only move along the pin; pinned knights can't move at all
+        for(long b = pinned & fromMask & ~bb.pieces(MoveRecorder.KNIGHT, isWhite); b != 0; b &= b - 1) {
+            long from = b & -b;
+            long pin = Attacks.line(king, Long.numberOfTrailingZeros(b)) & checkMask;
+            if((pawns & from) != 0) {
+                n = generatePawnMoves(moves, n, isWhite, from, enemy, ~occupied, pin);
+            } else {
+                n = generatePieceMoves(bb, moves, n, isWhite, from, ~own & pin, enemy, occupied);
+            }
+        }
+
+        // en passant takes two pieces off one row, so the king is looked at afterwards
+        int ep = bb.getEnPassant();
+        if(ep != BitBoard.NO_SQUARE) {
+            long captured = 1L << (ep + ((isWhite)?8:-8));
+            for(long b = Attacks.pawn(ep, !isWhite) & pawns; b != 0; b &= b - 1) {
+                long after = (occupied ^ (b & -b) ^ captured) | (1L << ep);
+                if((bb.attackersOf(king, !isWhite, after) & ~captured) == 0) {
+                    moves[n++] = Move.create(Long.numberOfTrailingZeros(b), ep,
+                            Move.CAPTURE | Move.EN_PASSANT);
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Generates the knight, bishop, rook and queen moves of one side
+     * @param bb the position
+     * @param moves the buffer to fill
+     * @param n the index to start filling from
+     * @param isWhite which side to generate moves for
+     * @param fromMask only pieces on these squares are moved
+     * @param targets the squares the pieces may move to
+     * @param enemy the enemy pieces
+     * @param occupied every occupied square
+     * @return the index after the last move generated
+     */
+    private static int generatePieceMoves(BitBoard bb, int[] moves, int n, boolean isWhite,
+            long fromMask, long targets, long enemy, long occupied) {
+        for(long b = bb.pieces(MoveRecorder.KNIGHT, isWhite) & fromMask; b != 0; b &= b - 1) {
+            int from = Long.numberOfTrailingZeros(b);
+            n = addMoves(moves, n, from, Attacks.knight(from) & targets, enemy);
+        }
+        for(long b = bb.pieces(MoveRecorder.BISHOP, isWhite) & fromMask; b != 0; b &= b - 1) {
+            int from = Long.numberOfTrailingZeros(b);
+            n = addMoves(moves, n, from, Attacks.bishop(from, occupied) & targets, enemy);
+        }
+        for(long b = bb.pieces(MoveRecorder.ROOK, isWhite) & fromMask; b != 0; b &= b - 1) {
+            int from = Long.numberOfTrailingZeros(b);
+            n = addMoves(moves, n, from, Attacks.rook(from, occupied) & targets, enemy);
+        }
+        for(long b = bb.pieces(MoveRecorder.QUEEN, isWhite) & fromMask; b != 0; b &= b - 1) {
+            int from = Long.numberOfTrailingZeros(b);
+            n = addMoves(moves, n, from, Attacks.queen(from, occupied) & targets, enemy);
+        }
+        return n;
+    }
+
+    /**
+     * Generates the pawn moves, including promotions but not en passant
+     * @param moves the buffer to fill
+     * @param n the index to start filling from
+     * @param isWhite whether the pawns are white
+     * @param pawns the pawns to move
+     * @param enemy the enemy pieces
+     * @param empty the empty squares
+     * @param targets the squares the pawns may move to
+     * @return the index after the last move generated
+     */
+    private static int generatePawnMoves(int[] moves, int n,
+            boolean isWhite, long pawns, long enemy, long empty, long targets) {
+        long single, twice, left, right;
+        int forward;
+        if(isWhite) {
+            forward = -8;
+            single = (pawns >>> 8) & empty;
+            twice = ((single & ROW_5) >>> 8) & empty;
+            left = ((pawns & ~Attacks.FILE_A) >>> 9) & enemy;
+            right = ((pawns & ~Attacks.FILE_H) >>> 7) & enemy;
+        } else {
+            forward = 8;
+            single = (pawns << 8) & empty;
+            twice = ((single & ROW_2) << 8) & empty;
+            left = ((pawns & ~Attacks.FILE_A) << 7) & enemy;
+            right = ((pawns & ~Attacks.FILE_H) << 9) & enemy;
+        }
+        long lastRow = (isWhite)?Attacks.ROW_0:Attacks.ROW_7;
+        n = addPawnMoves(moves, n, single & targets, forward, 0, lastRow);
+        for(long b = twice & targets; b != 0; b &= b - 1) {
+            int to = Long.numberOfTrailingZeros(b);
+            moves[n++] = Move.create(to - 2 * forward, to, Move.DOUBLE_PUSH);
+        }
+        n = addPawnMoves(moves, n, left & targets, forward - 1, Move.CAPTURE, lastRow);
+        n = addPawnMoves(moves, n, right & targets, forward + 1, Move.CAPTURE, lastRow);
+        return n;
+    }
+
+    /**
+     * Adds pawn moves to a set of destinations, expanding promotions
+     * @param moves the buffer to fill
+     * @param n the index to start filling from
+     * @param destinations the squares the pawns move to
+     * @param shift how far the pawns moved, in squares
+     * @param flags the flags of the moves
+     * @param lastRow the row where pawns promote
+     * @return the index after the last move added
+     */
+    private static int addPawnMoves(int[] moves, int n, long destinations, int shift,
+            int flags, long lastRow) {
+        for(long b = destinations; b != 0; b &= b - 1) {
+            int to = Long.numberOfTrailingZeros(b), from = to - shift;
+            if((b & -b & lastRow) != 0) {
+                for(int promotion : PROMOTIONS) {
+                    moves[n++] = Move.create(from, to, promotion, flags);
+                }
+            } else {
+                moves[n++] = Move.create(from, to, flags);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Adds a move from one square to every destination
+     * @param moves the buffer to fill
+     * @param n the index to start filling from
+     * @param from the square moved from
+     * @param destinations the squares moved to
+     * @param enemy the enemy pieces
+     * @return the index after the last move added
+     */
+    private static int addMoves(int[] moves, int n, int from, long destinations, long enemy) {
+        for(long b = destinations; b != 0; b &= b - 1) {
+            int to = Long.numberOfTrailingZeros(b);
+            moves[n++] = Move.create(from, to, ((enemy & (b & -b)) != 0)?Move.CAPTURE:0);
+        }
+        return n;
+    }
+
+    /**
+     * Generates the castling moves<br>
+     * The king may not be in check, pass through an attacked square or land on one.
+     * @param bb the position
+     * @param moves the buffer to fill
+     * @param n the index to start filling from
+     * @param isWhite whether white is castling
+     * @param occupied every occupied square
+     * @return the index after the last move generated
+     */
+    private static int generateCastling(BitBoard bb, int[] moves, int n,
+            boolean isWhite, long occupied) {
+        int castling = bb.getCastling();
+        // white on 7, black on 0
+        int row = (isWhite)?7:0;
+        int king = BitBoard.square(4, row);
+        if(bb.pieceAt(king) != BitBoard.piece(MoveRecorder.KING, isWhite)) return n;
+        int kingside = (isWhite)?BitBoard.WHITE_KINGSIDE:BitBoard.BLACK_KINGSIDE;
+        int queenside = (isWhite)?BitBoard.WHITE_QUEENSIDE:BitBoard.BLACK_QUEENSIDE;
+        if((castling & (kingside | queenside)) == 0 || bb.isSquareAttacked(king, !isWhite)) return n;
+        // 5, 6, Kingside
+        if((castling & kingside) != 0 && (occupied & (3L << (king + 1))) == 0
+                && !bb.isSquareAttacked(king + 1, !isWhite)
+                && !bb.isSquareAttacked(king + 2, !isWhite)) {
+            moves[n++] = Move.create(king, king + 2, Move.CASTLING);
+        }
+        // 1, 2, 3, Queenside
+        if((castling & queenside) != 0 && (occupied & (7L << (king - 3))) == 0
+                && !bb.isSquareAttacked(king - 1, !isWhite)
+                && !bb.isSquareAttacked(king - 2, !isWhite)) {
+            moves[n++] = Move.create(king, king - 2, Move.CASTLING);
+        }
+        return n;
+    }
+}
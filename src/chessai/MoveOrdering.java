@@ -0,0 +1,82 @@
+package chessai;
+
+/**
+ * Puts the moves likeliest to be good first, cheaply<br>
+ * Captures come first, most valuable victim first and then least valuable
+ * attacker first (MVV-LVA), together with promotions; quiet moves follow,
+ * ordered by how much they gain on the piece-square tables.
+ * @author Jed Wang
+ */
+public class MoveOrdering {
+    /**
+     * Added to the score of every capture and promotion,
+     * so that they come before every quiet move
+     */
+    public static final int CAPTURE_SCORE = 1 << 20;
+
+    /**
+     * No instances allowed
+     */
+    private MoveOrdering() {
+    }
+
+    /**
+     * Scores a move; higher is likelier to be good
+     * @param bb the position the move is played from
+     * @param move the move, encoded as in Move
+     * @return the score
+     */
+    public static int score(BitBoard bb, int move) {
+        int from = Move.from(move), to = Move.to(move);
+        int piece = bb.pieceAt(from);
+        int type = BitBoard.type(piece);
+        if(Move.isCapture(move) || Move.isPromotion(move)) {
+            int score = CAPTURE_SCORE;
+            if(Move.isCapture(move)) {
+                int victim = (Move.isEnPassant(move))?MoveRecorder.PAWN:BitBoard.type(bb.pieceAt(to));
+                score += Evaluator.PIECE_VALUES[victim] * 8 - type;
+            }
+            if(Move.isPromotion(move)) {
+                score += (Evaluator.PIECE_VALUES[Move.promotion(move)] - Evaluator.PIECE_VALUES[MoveRecorder.PAWN]) * 8;
+            }
+            return score;
+        }
+        return Evaluator.pieceValue(piece, to) - Evaluator.pieceValue(piece, from);
+    }
+
+    /**
+     * Sorts moves by score, highest first, keeping the order of moves with equal scores
+     * @param moves the moves, encoded as in Move
+     * @param scores their scores, sorted along with them
+     * @param start the index of the first move
+     * @param end the index after the last move
+     */
+    public static void sort(int[] moves, int[] scores, int start, int end) {
+        // move lists are short, so an insertion sort is quickest
+        for(int i = start + 1; i < end; i++) {
+            int move = moves[i], score = scores[i];
+            int j = i - 1;
+            for(; j >= start && scores[j] < score; j--) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * Scores moves and sorts them, highest first
+     * @param bb the position the moves are played from
+     * @param moves the moves, encoded as in Move
+     * @param scores where to put the scores; must be as long as moves
+     * @param start the index of the first move
+     * @param end the index after the last move
+     */
+    public static void sort(BitBoard bb, int[] moves, int[] scores, int start, int end) {
+        for(int i = start; i < end; i++) {
+            scores[i] = score(bb, moves[i]);
+        }
+        sort(moves, scores, start, end);
+    }
+}
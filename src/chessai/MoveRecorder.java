@@ -223,56 +223,61 @@ public class MoveRecorder {
      * @param toWhere to where the piece was moved
      */
     public void moved(ChessBoard before, ChessBoard after, String fromWhere, String toWhere) {
-        /*moved(before, 
-                ChessBoard.getColumn(fromWhere), ChessBoard.getRow(fromWhere), 
-                ChessBoard.getColumn(toWhere), ChessBoard.getRow(toWhere));*/
+        AbstractPiece toMove = before.getPiece(fromWhere);
+        if(toMove == null) throw new IllegalArgumentException("Null piece");
+        AbstractPiece moved = after.getPiece(toWhere);
+        int promotion = (toMove.getType() == PAWN && moved.getType() != PAWN)?moved.getType():0;
+        moved(describe(before, fromWhere, toWhere, promotion), after, toMove.isWhite);
+    }
+    
+    /**
+     * Determines the String that denotes a move, without the check notation<br>
+     * Must be called before the move is made
+     * @param before the state of the game before the move
+     * @param fromWhere from where the piece is moved
+     * @param toWhere to where the piece is moved
+     * @param promotion the piece promoted to, or 0 if there is none
+     * @return the String that denotes the move
+     */
+    public String describe(ChessBoard before, String fromWhere, String toWhere, int promotion) {
         AbstractPiece toMove = before.getPiece(fromWhere);
         if(toMove == null) throw new IllegalArgumentException("Null piece");
         //if(!toMove.isLegalMove(before, fromWhere, toWhere)) throw new IllegalArgumentException("Not a legal move!");
         
         switch(toMove.getCharRepresentation()) {
             case "P":
-                if(ChessBoard.getRow(toWhere) == 0 || ChessBoard.getRow(toWhere) == 8) {
-                    switch(after.getPiece(toWhere).getCharRepresentation()) {
-                        case "N":
-                            moves.add(addChecks(promotionMoveString(toMoveString(fromWhere, toWhere, PAWN, isCapture(before, toWhere)), KNIGHT), after, after.getPiece(toWhere).isWhite));
-                            break;
-                        case "B":
-                            moves.add(addChecks(promotionMoveString(toMoveString(fromWhere, toWhere, PAWN, isCapture(before, toWhere)), BISHOP), after, after.getPiece(toWhere).isWhite));
-                            break;
-                        case "R":
-                            moves.add(addChecks(promotionMoveString(toMoveString(fromWhere, toWhere, PAWN, isCapture(before, toWhere)), ROOK), after, after.getPiece(toWhere).isWhite));
-                            break;
-                        case "Q":
-                            moves.add(addChecks(promotionMoveString(toMoveString(fromWhere, toWhere, PAWN, isCapture(before, toWhere)), QUEEN), after, after.getPiece(toWhere).isWhite));
-                            break;
-                    }
+                if(promotion != 0) {
+                    return promotionMoveString(toMoveString(fromWhere, toWhere, PAWN, isCapture(before, toWhere)), promotion);
                 } else {
-                    moves.add(addChecks(toMoveString(fromWhere, toWhere, PAWN, isCapture(before, toWhere)), after, after.getPiece(toWhere).isWhite));
+                    return toMoveString(fromWhere, toWhere, PAWN, isCapture(before, toWhere));
                 }
-                break;
             case "K":
                 if(Math.abs(ChessBoard.getColumn(fromWhere)-ChessBoard.getColumn(toWhere)) == 2) {
-                    moves.add(addChecks(castlingMoveString(ChessBoard.getColumn(fromWhere) < ChessBoard.getColumn(toWhere)), after, after.getPiece(toWhere).isWhite));
+                    return castlingMoveString(ChessBoard.getColumn(fromWhere) < ChessBoard.getColumn(toWhere));
                 } else {
-                    moves.add(addChecks(toMoveString(fromWhere, toWhere, KING, isCapture(before, toWhere)), after, after.getPiece(toWhere).isWhite));
+                    return toMoveString(fromWhere, toWhere, KING, isCapture(before, toWhere));
                 }
-                break;
             case "N":
-                moves.add(addChecks(moveString(before, fromWhere, toWhere, toMove, KNIGHT, isCapture(before, toWhere)), after, after.getPiece(toWhere).isWhite));
-                break;
+                return moveString(before, fromWhere, toWhere, toMove, KNIGHT, isCapture(before, toWhere));
             case "B":
-                moves.add(addChecks(moveString(before, fromWhere, toWhere, toMove, BISHOP, isCapture(before, toWhere)), after, after.getPiece(toWhere).isWhite));
-                break;
+                return moveString(before, fromWhere, toWhere, toMove, BISHOP, isCapture(before, toWhere));
             case "R":
-                moves.add(addChecks(moveString(before, fromWhere, toWhere, toMove, ROOK, isCapture(before, toWhere)), after, after.getPiece(toWhere).isWhite));
-                break;
+                return moveString(before, fromWhere, toWhere, toMove, ROOK, isCapture(before, toWhere));
             case "Q":
-                moves.add(addChecks(moveString(before, fromWhere, toWhere, toMove, QUEEN, isCapture(before, toWhere)), after, after.getPiece(toWhere).isWhite));
-                break;
+                return moveString(before, fromWhere, toWhere, toMove, QUEEN, isCapture(before, toWhere));
             default:
                 throw new IllegalArgumentException("Unknown piece");
         }
+    }
+    
+    /**
+     * Notes a move described with describe, once it has been made
+     * @param move the String that denotes the move, from describe
+     * @param after the state of the game after the move
+     * @param isWhite whether the moved piece is white
+     */
+    public void moved(String move, ChessBoard after, boolean isWhite) {
+        moves.add(addChecks(move, after, isWhite));
         if(after.checkMated(true)) {
             addOutcome(-1);
         } else if(after.checkMated(false)) {
@@ -0,0 +1,542 @@
+package chessai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores a whole Monte Carlo tree in a preallocated NodeStorage<br>
+ * <br>
+ * Node 0 is the root. Each node keeps only the move that led to it,
+ * never a board; positions are rebuilt by playing the moves down from the root.
+ * The children of a node are allocated together, so they are numbered
+ * firstChild to firstChild + childCount - 1, and every child is numbered
+ * higher than its parent.<br>
+ * <br>
+ * Many threads may search one pool at once: statistics are updated atomically,
+ * and a node is expanded by whichever thread first claims it with a compare-and-set.<br>
+ * <br>
+ * The pool never grows past the capacity of its storage. Once it is full,
+ * prune() throws away the subtrees which have gone the longest without being searched.<br>
+ * <br>
+ * Each node also keeps the Zobrist hash of its position. When the pool has a
+ * TranspositionTable, the visits, value sums and square sums are kept there,
+ * keyed by hash instead of by node, so positions reached by different move orders
+ * share their statistics; the other statistics stay with the node. The statistics
+ * of pruned subtrees then outlive the nodes, until the table replaces them.
+ * @author Jed Wang
+ */
+public class NodePool {
+    /**
+     * The number of nodes used when none is given
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    /**
+     * The firstChild of a node which has not been expanded
+     */
+    public static final int UNEXPANDED = -1;
+
+    /**
+     * The firstChild of a node which a thread is expanding
+     */
+    private static final int EXPANDING = -2;
+
+    /**
+     * How many buckets prune() sorts the nodes into on each pass, by when they were last searched through
+     */
+    private static final int HISTOGRAM_SIZE = 1024;
+
+    /**
+     * Where the nodes are kept<br>
+     * A node's firstChild is set last when expanding, so that its other fields are visible once it is
+     */
+    private final NodeStorage storage;
+
+    /**
+     * Where the visits, value sums and square sums are kept, keyed by hash, or null to keep them with the nodes
+     */
+    private final TranspositionTable table;
+
+    /**
+     * How many nodes are in use
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Counts the searches through the pool, so that it is known which nodes were searched last<br>
+     * A long, so that it never wraps around however long the pool is searched
+     */
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Default constructor.
+     */
+    public NodePool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a pool on the heap holding only a root,
+     * sharing statistics between transpositions through a table as big as the pool
+     * @param capacity the most nodes the pool can hold
+     */
+    public NodePool(int capacity) {
+        this(new HeapNodeStorage(capacity), new TranspositionTable(capacity));
+    }
+
+    /**
+     * Creates a pool holding only a root, keeping the statistics with the nodes
+     * @param storage where the nodes are kept; anything in it is thrown away
+     */
+    public NodePool(NodeStorage storage) {
+        this(storage, null);
+    }
+
+    /**
+     * Creates a pool holding only a root
+     * @param storage where the nodes are kept; anything in it is thrown away
+     * @param table where the visits, value sums and square sums are shared between transpositions,
+     * or null to keep them with the nodes; anything in it is thrown away
+     */
+    public NodePool(NodeStorage storage, TranspositionTable table) {
+        this.storage = storage;
+        this.table = table;
+        reset();
+    }
+
+    /**
+     * Throws away every node but a new, unexpanded root<br>
+     * Must not be called while the pool is being searched
+     */
+    public void reset() {
+        if(table != null) table.clear();
+        init(0, -1, Move.NONE, 0);
+        size.set(1);
+    }
+
+    /**
+     * Returns the most nodes the pool can hold
+     * @return the capacity of the pool
+     */
+    public int capacity() {
+        return storage.capacity();
+    }
+
+    /**
+     * Returns how many nodes are in use
+     * @return how many nodes are in use
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns where the nodes are kept
+     * @return where the nodes are kept
+     */
+    public NodeStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns where the visits, value sums and square sums are shared between transpositions
+     * @return the table, or null if they are kept with the nodes
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Returns the Zobrist hash of the position at a node
+     * @param node the node
+     * @return the hash
+     */
+    public long getHash(int node) {
+        return storage.getHash(node);
+    }
+
+    /**
+     * Sets the Zobrist hash of the position at a node<br>
+     * Children are given theirs when expanded; only a new root needs this
+     * @param node the node
+     * @param hash the hash
+     */
+    public void setHash(int node, long hash) {
+        storage.setHash(node, hash);
+    }
+
+    /**
+     * Returns the parent of a node
+     * @param node the node
+     * @return the parent, or -1 for the root
+     */
+    public int getParent(int node) {
+        return storage.getParent(node);
+    }
+
+    /**
+     * Returns the first child of a node
+     * @param node the node
+     * @return the first child, or a negative number if the node is not expanded
+     */
+    public int getFirstChild(int node) {
+        return storage.getFirstChild(node);
+    }
+
+    /**
+     * Returns how many children a node has
+     * @param node the node
+     * @return how many children the node has, 0 if it is not expanded
+     */
+    public int getChildCount(int node) {
+        return (storage.getFirstChild(node) < 0)?0:storage.getChildCount(node);
+    }
+
+    /**
+     * Determines whether a node has been expanded<br>
+     * An expanded node with no children is a finished game
+     * @param node the node
+     * @return whether the node has been expanded
+     */
+    public boolean isExpanded(int node) {
+        return storage.getFirstChild(node) >= 0;
+    }
+
+    /**
+     * Returns the move that led to a node
+     * @param node the node
+     * @return the move, encoded as in Move, or Move.NONE for the root
+     */
+    public int getMove(int node) {
+        return storage.getMove(node);
+    }
+
+    /**
+     * Returns how many visits a node has, including those through its transpositions
+     * @param node the node
+     * @return how many visits the node has
+     */
+    public int getVisits(int node) {
+        return (table == null)?storage.getVisits(node):table.getVisits(storage.getHash(node));
+    }
+
+    /**
+     * Returns the sum of the values backed up through a node, including its transpositions
+     * @param node the node
+     * @return the sum of the values
+     */
+    public double getValueSum(int node) {
+        return (table == null)?storage.getValueSum(node):table.getValueSum(storage.getHash(node));
+    }
+
+    /**
+     * Adds to the visits and the value sum of a node<br>
+     * Either may be negative, which is how virtual losses are taken back
+     * @param node the node
+     * @param visits how many visits to add
+     * @param value how much to add to the value sum
+     */
+    public void add(int node, int visits, double value) {
+        if(table != null) {
+            table.add(storage.getHash(node), visits, value);
+            return;
+        }
+        if(visits != 0) storage.addVisits(node, visits);
+        if(value != 0) storage.addValueSum(node, value);
+    }
+
+    /**
+     * Returns the sum of the squares of the values backed up through a node, including its transpositions
+     * @param node the node
+     * @return the sum of the squares
+     */
+    public double getSquareSum(int node) {
+        return (table == null)?storage.getSquareSum(node):table.getSquareSum(storage.getHash(node));
+    }
+
+    /**
+     * Adds the square of a value backed up through a node
+     * @param node the node
+     * @param square the square of the value
+     */
+    public void addSquare(int node, double square) {
+        if(table != null) {
+            table.addSquare(storage.getHash(node), square);
+            return;
+        }
+        storage.addSquareSum(node, square);
+    }
+
+    /**
+     * Returns how many simulations played the move that led to a node at any time after its parent
+     * @param node the node
+     * @return how many AMAF visits the node has
+     */
+    public int getAmafVisits(int node) {
+        return storage.getAmafVisits(node);
+    }
+
+    /**
+     * Returns the sum of the values of the simulations counted in a node's AMAF visits
+     * @param node the node
+     * @return the sum of the AMAF values
+     */
+    public double getAmafValueSum(int node) {
+        return storage.getAmafValueSum(node);
+    }
+
+    /**
+     * Adds an AMAF visit to a node
+     * @param node the node
+     * @param value the value of the simulation
+     */
+    public void addAmaf(int node, double value) {
+        storage.addAmafVisits(node, 1);
+        if(value != 0) storage.addAmafValueSum(node, value);
+    }
+
+    /**
+     * Returns how likely the move that led to a node is thought to be best, before any search<br>
+     * The children of a node all start with the same prior.
+     * @param node the node
+     * @return the prior probability
+     */
+    public float getPrior(int node) {
+        return storage.getPrior(node);
+    }
+
+    /**
+     * Sets how likely the move that led to a node is thought to be best, before any search
+     * @param node the node
+     * @param prior the prior probability
+     */
+    public void setPrior(int node, float prior) {
+        storage.setPrior(node, prior);
+    }
+
+    /**
+     * Starts a search through the pool
+     * @return the time to mark the nodes searched through with
+     */
+    public long tick() {
+        return clock.incrementAndGet();
+    }
+
+    /**
+     * Marks a node as searched through, so that it is not pruned before colder nodes
+     * @param node the node
+     * @param time the time given by tick()
+     */
+    public void touch(int node, long time) {
+        storage.setLastVisit(node, time);
+    }
+
+    /**
+     * Returns when a node was last searched through
+     * @param node the node
+     * @return the time given by tick()
+     */
+    public long getLastVisit(int node) {
+        return storage.getLastVisit(node);
+    }
+
+    /**
+     * Gives a node one child for each move, all with the same prior<br>
+     * Nothing happens if the node is already expanded, another thread is expanding it,
+     * or the pool is too full to hold the children.
+     * @param node the node
+     * @param moves the moves, encoded as in Move
+     * @param count how many moves there are
+     * @return whether the node was expanded by this call
+     */
+    public boolean expand(int node, int[] moves, int count) {
+        return expand(node, moves, null, null, count);
+    }
+
+    /**
+     * Gives a node one child for each move<br>
+     * Nothing happens if the node is already expanded, another thread is expanding it,
+     * or the pool is too full to hold the children.
+     * @param node the node
+     * @param moves the moves, encoded as in Move
+     * @param priors the prior probability of each move, or null for all the same
+     * @param count how many moves there are
+     * @return whether the node was expanded by this call
+     */
+    public boolean expand(int node, int[] moves, float[] priors, int count) {
+        return expand(node, moves, null, priors, count);
+    }
+
+    /**
+     * Gives a node one child for each move, with the hashes of the positions they lead to<br>
+     * Nothing happens if the node is already expanded, another thread is expanding it,
+     * or the pool is too full to hold the children.
+     * @param node the node
+     * @param moves the moves, encoded as in Move
+     * @param hashes the Zobrist hash after each move, or null;
+     * needed if the pool has a TranspositionTable
+     * @param priors the prior probability of each move, or null for all the same
+     * @param count how many moves there are
+     * @return whether the node was expanded by this call
+     */
+    public boolean expand(int node, int[] moves, long[] hashes, float[] priors, int count) {
+        if(hashes == null && table != null && count > 0)
+            throw new IllegalArgumentException("Hashes are needed to share statistics");
+        if(!storage.compareAndSetFirstChild(node, UNEXPANDED, EXPANDING)) return false;
+        int start;
+        do {
+            start = size.get();
+            // compared this way round, so that nothing overflows next to Integer.MAX_VALUE
+            if(count > storage.capacity() - start) {
+                storage.setFirstChild(node, UNEXPANDED);
+                return false;
+            }
+        } while(!size.compareAndSet(start, start + count));
+        for(int i = 0; i < count; i++) {
+            init(start + i, node, moves[i], (hashes == null)?0:hashes[i]);
+            storage.setPrior(start + i, (priors == null)?1f / count:priors[i]);
+        }
+        storage.setChildCount(node, count);
+        storage.setFirstChild(node, start);
+        return true;
+    }
+
+    /**
+     * Keeps only the subtree under one node, which becomes the root<br>
+     * The subtree is moved to the front of the pool, in order, so that
+     * the rest of the pool can be reused. Must not be called while the pool is being searched.
+     * @param node the node to keep
+     */
+    public void retain(int node) {
+        compact(node);
+    }
+
+    /**
+     * Throws away the subtrees searched through least recently, until at most
+     * a number of nodes are left<br>
+     * The nodes at the top of the thrown away subtrees are kept, with their
+     * statistics, but are no longer expanded; the children of a node are
+     * always kept or thrown away together, and the root's are always kept.
+     * Must not be called while the pool is being searched.
+     * @param target the most nodes to keep
+     * @return how many nodes were thrown away
+     */
+    public int prune(int target) {
+        int n = size.get();
+        if(n <= target) return 0;
+        // a node is searched through whenever one of its children is, so the nodes
+        // searched through since any time make up a subtree; keep the biggest which fits.
+        // Rather than sort the nodes by when they were last searched through, which would
+        // take memory in proportion to the pool, the time to cut off at is narrowed down
+        // by histograms of how many children the nodes last searched through at each time have
+        long low = Long.MAX_VALUE, high = Long.MIN_VALUE;
+        for(int i = 1; i < n; i++) {
+            if(!hasChildren(i)) continue;
+            long time = storage.getLastVisit(i);
+            low = Math.min(low, time);
+            high = Math.max(high, time);
+        }
+        long[] children = new long[HISTOGRAM_SIZE];
+        long kept = 1 + getChildCount(0), cutoff = Long.MIN_VALUE;
+        while(low <= high) {
+            long width = (high - low) / HISTOGRAM_SIZE + 1;
+            Arrays.fill(children, 0);
+            for(int i = 1; i < n; i++) {
+                if(!hasChildren(i)) continue;
+                long time = storage.getLastVisit(i);
+                if(time >= low && time <= high) children[(int)((time - low) / width)] += storage.getChildCount(i);
+            }
+            int bucket = (int)((high - low) / width);
+            for(; bucket >= 0 && kept + children[bucket] <= target; bucket--) {
+                kept += children[bucket];
+            }
+            // everything fits
+            if(bucket < 0) break;
+            low += bucket * width;
+            if(width == 1) {
+                cutoff = low;
+                break;
+            }
+            high = Math.min(high, low + width - 1);
+        }
+        if(cutoff != Long.MIN_VALUE) {
+            for(int i = 1; i < n; i++) {
+                if(storage.getFirstChild(i) >= 0 && storage.getLastVisit(i) <= cutoff)
+                    storage.setFirstChild(i, UNEXPANDED);
+            }
+        }
+        compact(0);
+        return n - size.get();
+    }
+
+    /**
+     * Determines whether a node has been expanded and has children
+     * @param node the node
+     * @return whether the node has children
+     */
+    private boolean hasChildren(int node) {
+        return storage.getFirstChild(node) >= 0 && storage.getChildCount(node) != 0;
+    }
+
+    /**
+     * Moves a node and every node under it which is still reachable to the front of the pool, in order
+     * @param node the node, which becomes the root
+     */
+    private void compact(int node) {
+        int n = size.get();
+        int next = 0;
+        // children are numbered after their parents, so one pass finds the whole subtree;
+        // nodes only ever move down, onto nodes already looked at. Instead of keeping where
+        // each node ends up, which would take memory in proportion to the pool, a node kept
+        // which is still expanded marks its children as kept by setting their parent to
+        // -2 - where it ended up; the children have not been looked at or overwritten yet
+        for(int i = node; i < n; i++) {
+            int parent = -1;
+            if(i != node) {
+                int mark = storage.getParent(i);
+                if(mark >= 0) continue;
+                parent = -2 - mark;
+            }
+            if(i != next) storage.copy(i, next);
+            storage.setParent(next, parent);
+            if(i == node) {
+                storage.setMove(next, Move.NONE);
+            } else if(storage.getFirstChild(parent) == i) {
+                // the first child, and its siblings end up right after it
+                storage.setFirstChild(parent, next);
+            }
+            int first = storage.getFirstChild(next), count = storage.getChildCount(next);
+            if(first >= 0) {
+                if(count == 0) storage.setFirstChild(next, 0);
+                for(int child = first; child < first + count; child++) {
+                    storage.setParent(child, -2 - next);
+                }
+            }
+            next++;
+        }
+        size.set(next);
+    }
+
+    /**
+     * Sets up an unexpanded node with no statistics of its own
+     * @param node the node
+     * @param parent its parent
+     * @param move the move that led to it
+     * @param hash the Zobrist hash of its position
+     */
+    private void init(int node, int parent, int move, long hash) {
+        storage.setParent(node, parent);
+        storage.setMove(node, move);
+        storage.setChildCount(node, 0);
+        storage.setVisits(node, 0);
+        storage.setValueSum(node, 0);
+        storage.setSquareSum(node, 0);
+        storage.setAmafVisits(node, 0);
+        storage.setAmafValueSum(node, 0);
+        storage.setPrior(node, 1);
+        storage.setLastVisit(node, clock.get());
+        storage.setHash(node, hash);
+        storage.setFirstChild(node, UNEXPANDED);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,250 @@
+package chessai;
+
+/**
+ * Where the fields of the nodes of a NodePool are kept<br>
+ * Every field is an int, apart from the sums, the prior, the last visit and the hash, and every node is
+ * numbered from 0 to capacity() - 1. The first child, the visits and the
+ * sums may be changed by many threads at once, so they are read and
+ * written atomically; the other fields are written before a node is
+ * published through its parent's first child.
+ * @author Jed Wang
+ */
+public interface NodeStorage {
+    /**
+     * Returns how many nodes can be stored
+     * @return how many nodes can be stored
+     */
+    int capacity();
+
+    /**
+     * Returns the parent of a node
+     * @param node the node
+     * @return the parent
+     */
+    int getParent(int node);
+
+    /**
+     * Sets the parent of a node
+     * @param node the node
+     * @param parent the parent
+     */
+    void setParent(int node, int parent);
+
+    /**
+     * Returns the first child of a node
+     * @param node the node
+     * @return the first child
+     */
+    int getFirstChild(int node);
+
+    /**
+     * Sets the first child of a node, publishing the node's other fields
+     * @param node the node
+     * @param firstChild the first child
+     */
+    void setFirstChild(int node, int firstChild);
+
+    /**
+     * Sets the first child of a node if it is what is expected
+     * @param node the node
+     * @param expect the first child expected
+     * @param firstChild the new first child
+     * @return whether the first child was set
+     */
+    boolean compareAndSetFirstChild(int node, int expect, int firstChild);
+
+    /**
+     * Returns how many children a node has
+     * @param node the node
+     * @return how many children the node has
+     */
+    int getChildCount(int node);
+
+    /**
+     * Sets how many children a node has
+     * @param node the node
+     * @param childCount how many children the node has
+     */
+    void setChildCount(int node, int childCount);
+
+    /**
+     * Returns the move that led to a node
+     * @param node the node
+     * @return the move, encoded as in Move
+     */
+    int getMove(int node);
+
+    /**
+     * Sets the move that led to a node
+     * @param node the node
+     * @param move the move, encoded as in Move
+     */
+    void setMove(int node, int move);
+
+    /**
+     * Returns how many visits a node has
+     * @param node the node
+     * @return how many visits the node has
+     */
+    int getVisits(int node);
+
+    /**
+     * Sets how many visits a node has
+     * @param node the node
+     * @param visits how many visits the node has
+     */
+    void setVisits(int node, int visits);
+
+    /**
+     * Adds to the visits of a node atomically
+     * @param node the node
+     * @param visits how many visits to add
+     */
+    void addVisits(int node, int visits);
+
+    /**
+     * Returns the sum of the values backed up through a node
+     * @param node the node
+     * @return the sum of the values
+     */
+    double getValueSum(int node);
+
+    /**
+     * Sets the sum of the values backed up through a node
+     * @param node the node
+     * @param valueSum the sum of the values
+     */
+    void setValueSum(int node, double valueSum);
+
+    /**
+     * Adds to the value sum of a node atomically
+     * @param node the node
+     * @param value how much to add
+     */
+    void addValueSum(int node, double value);
+
+    /**
+     * Returns the sum of the squares of the values backed up through a node
+     * @param node the node
+     * @return the sum of the squares
+     */
+    double getSquareSum(int node);
+
+    /**
+     * Sets the sum of the squares of the values backed up through a node
+     * @param node the node
+     * @param squareSum the sum of the squares
+     */
+    void setSquareSum(int node, double squareSum);
+
+    /**
+     * Adds to the sum of the squares of a node atomically
+     * @param node the node
+     * @param square how much to add
+     */
+    void addSquareSum(int node, double square);
+
+    /**
+     * Returns how many simulations played the move that led to a node at any time after its parent
+     * @param node the node
+     * @return how many AMAF visits the node has
+     */
+    int getAmafVisits(int node);
+
+    /**
+     * Sets how many AMAF visits a node has
+     * @param node the node
+     * @param visits how many AMAF visits the node has
+     */
+    void setAmafVisits(int node, int visits);
+
+    /**
+     * Adds to the AMAF visits of a node atomically
+     * @param node the node
+     * @param visits how many AMAF visits to add
+     */
+    void addAmafVisits(int node, int visits);
+
+    /**
+     * Returns the sum of the values of the simulations counted in a node's AMAF visits
+     * @param node the node
+     * @return the sum of the AMAF values
+     */
+    double getAmafValueSum(int node);
+
+    /**
+     * Sets the sum of the AMAF values of a node
+     * @param node the node
+     * @param valueSum the sum of the AMAF values
+     */
+    void setAmafValueSum(int node, double valueSum);
+
+    /**
+     * Adds to the AMAF value sum of a node atomically
+     * @param node the node
+     * @param value how much to add
+     */
+    void addAmafValueSum(int node, double value);
+
+    /**
+     * Returns how likely the move that led to a node is thought to be best, before any search
+     * @param node the node
+     * @return the prior probability
+     */
+    float getPrior(int node);
+
+    /**
+     * Sets the prior probability of a node
+     * @param node the node
+     * @param prior the prior probability
+     */
+    void setPrior(int node, float prior);
+
+    /**
+     * Returns when a node was last passed through by a search
+     * @param node the node
+     * @return the time, as counted by the NodePool
+     */
+    long getLastVisit(int node);
+
+    /**
+     * Sets when a node was last passed through by a search
+     * @param node the node
+     * @param time the time, as counted by the NodePool
+     */
+    void setLastVisit(int node, long time);
+
+    /**
+     * Returns the Zobrist hash of the position at a node
+     * @param node the node
+     * @return the hash
+     */
+    long getHash(int node);
+
+    /**
+     * Sets the Zobrist hash of the position at a node
+     * @param node the node
+     * @param hash the hash
+     */
+    void setHash(int node, long hash);
+
+    /**
+     * Copies every field of one node onto another
+     * @param from the node to copy
+     * @param to the node to copy onto
+     */
+    default void copy(int from, int to) {
+        setParent(to, getParent(from));
+        setChildCount(to, getChildCount(from));
+        setMove(to, getMove(from));
+        setVisits(to, getVisits(from));
+        setValueSum(to, getValueSum(from));
+        setSquareSum(to, getSquareSum(from));
+        setAmafVisits(to, getAmafVisits(from));
+        setAmafValueSum(to, getAmafValueSum(from));
+        setPrior(to, getPrior(from));
+        setLastVisit(to, getLastVisit(from));
+        setHash(to, getHash(from));
+        setFirstChild(to, getFirstChild(from));
+    }
+}
\ No newline at end of file
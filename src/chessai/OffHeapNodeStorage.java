@@ -0,0 +1,344 @@
+package chessai;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps the nodes of a NodePool outside the heap, in a direct or memory-mapped ByteBuffer<br>
+ * <br>
+ * Each node is a record of RECORD_SIZE bytes, so the garbage collector never
+ * sees the tree however big it gets. A memory-mapped file lets the operating
+ * system page cold parts of the tree out to disk, so a tree may be bigger
+ * than the memory of the machine.<br>
+ * <br>
+ * A ByteBuffer holds at most 2 GB, so the records are split over segments of
+ * SEGMENT_SIZE nodes each, every segment its own buffer or mapping; the segment
+ * of a node is its number shifted right by SEGMENT_SHIFT. Nodes are numbered
+ * by ints, so a storage holds at most MAX_CAPACITY nodes, or 144 GB.
+ * @author Jed Wang
+ */
+public class OffHeapNodeStorage implements NodeStorage {
+    /**
+     * How many bytes each node takes up
+     */
+    public static final int RECORD_SIZE = 72;
+
+    /**
+     * The most nodes a storage can hold
+     */
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE;
+
+    /**
+     * How far a node's number is shifted right to find its segment
+     */
+    public static final int SEGMENT_SHIFT = 24;
+
+    /**
+     * How many nodes a segment holds; a segment takes up 1.125 GB
+     */
+    public static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    /**
+     * Picks out where a node is in its segment
+     */
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * Where each field is in a record<br>
+     * Every field is aligned, so that it can be read and written atomically
+     */
+    private static final int PARENT = 0, FIRST_CHILD = 4, CHILD_COUNT = 8,
+            MOVE = 12, VISITS = 16, AMAF_VISITS = 20, VALUE_SUM = 24, SQUARE_SUM = 32,
+            AMAF_VALUE_SUM = 40, HASH = 48, LAST_VISIT = 56, PRIOR = 64;
+
+    /**
+     * Reads and writes the int fields
+     */
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    /**
+     * Reads and writes the long fields, and the bits of the sums
+     */
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * Where the records are, one buffer per segment
+     */
+    private final ByteBuffer[] segments;
+
+    /**
+     * How many nodes can be stored
+     */
+    private final int capacity;
+
+    /**
+     * Wraps the buffers of the segments
+     * @param segments the buffers, which must be direct; all but the last hold SEGMENT_SIZE nodes
+     * @param capacity how many nodes can be stored
+     */
+    private OffHeapNodeStorage(ByteBuffer[] segments, int capacity) {
+        for(ByteBuffer segment : segments) {
+            segment.order(ByteOrder.nativeOrder());
+        }
+        this.segments = segments;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Keeps the nodes in memory allocated outside the heap
+     * @param capacity how many nodes can be stored
+     * @return the storage
+     */
+    public static OffHeapNodeStorage allocate(int capacity) {
+        ByteBuffer[] segments = new ByteBuffer[segmentCount(checkCapacity(capacity))];
+        for(int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect(segmentBytes(capacity, i));
+        }
+        return new OffHeapNodeStorage(segments, capacity);
+    }
+
+    /**
+     * Keeps the nodes in a memory-mapped file, which is created if it does not exist<br>
+     * The file stays as long as the mapping is reachable; it is not deleted afterwards.
+     * @param file the file
+     * @param capacity how many nodes can be stored
+     * @return the storage
+     * @throws IOException if the file cannot be mapped
+     */
+    public static OffHeapNodeStorage map(Path file, int capacity) throws IOException {
+        ByteBuffer[] segments = new ByteBuffer[segmentCount(checkCapacity(capacity))];
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for(int i = 0; i < segments.length; i++) {
+                long position = (long)i * SEGMENT_SIZE * RECORD_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, segmentBytes(capacity, i));
+            }
+        }
+        return new OffHeapNodeStorage(segments, capacity);
+    }
+
+    /**
+     * Makes sure a capacity can be stored
+     * @param capacity how many nodes are to be stored
+     * @return the capacity
+     */
+    private static int checkCapacity(int capacity) {
+        if(capacity <= 0 || capacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        return capacity;
+    }
+
+    /**
+     * Returns how many segments hold a number of nodes
+     * @param capacity how many nodes are to be stored
+     * @return how many segments there are
+     */
+    private static int segmentCount(int capacity) {
+        return (int)(((long)capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    }
+
+    /**
+     * Returns how big a segment is
+     * @param capacity how many nodes are stored in all
+     * @param segment which segment
+     * @return how many bytes the segment takes up
+     */
+    private static int segmentBytes(int capacity, int segment) {
+        long nodes = Math.min(SEGMENT_SIZE, capacity - ((long)segment << SEGMENT_SHIFT));
+        return (int)nodes * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the buffer holding a node
+     * @param node the node
+     * @return the buffer of its segment
+     */
+    private ByteBuffer segment(int node) {
+        return segments[node >>> SEGMENT_SHIFT];
+    }
+
+    /**
+     * Returns where a field of a node is in its segment
+     * @param node the node
+     * @param field where the field is in a record
+     * @return where the field is in the buffer of the segment
+     */
+    private static int offset(int node, int field) {
+        return (node & SEGMENT_MASK) * RECORD_SIZE + field;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getParent(int node) {
+        return (int)INT.get(segment(node), offset(node, PARENT));
+    }
+
+    @Override
+    public void setParent(int node, int parent) {
+        INT.set(segment(node), offset(node, PARENT), parent);
+    }
+
+    @Override
+    public int getFirstChild(int node) {
+        return (int)INT.getVolatile(segment(node), offset(node, FIRST_CHILD));
+    }
+
+    @Override
+    public void setFirstChild(int node, int firstChild) {
+        INT.setVolatile(segment(node), offset(node, FIRST_CHILD), firstChild);
+    }
+
+    @Override
+    public boolean compareAndSetFirstChild(int node, int expect, int firstChild) {
+        return INT.compareAndSet(segment(node), offset(node, FIRST_CHILD), expect, firstChild);
+    }
+
+    @Override
+    public int getChildCount(int node) {
+        return (int)INT.get(segment(node), offset(node, CHILD_COUNT));
+    }
+
+    @Override
+    public void setChildCount(int node, int childCount) {
+        INT.set(segment(node), offset(node, CHILD_COUNT), childCount);
+    }
+
+    @Override
+    public int getMove(int node) {
+        return (int)INT.get(segment(node), offset(node, MOVE));
+    }
+
+    @Override
+    public void setMove(int node, int move) {
+        INT.set(segment(node), offset(node, MOVE), move);
+    }
+
+    @Override
+    public int getVisits(int node) {
+        return (int)INT.getVolatile(segment(node), offset(node, VISITS));
+    }
+
+    @Override
+    public void setVisits(int node, int visits) {
+        INT.setVolatile(segment(node), offset(node, VISITS), visits);
+    }
+
+    @Override
+    public void addVisits(int node, int visits) {
+        INT.getAndAdd(segment(node), offset(node, VISITS), visits);
+    }
+
+    @Override
+    public double getValueSum(int node) {
+        return Double.longBitsToDouble((long)LONG.getVolatile(segment(node), offset(node, VALUE_SUM)));
+    }
+
+    @Override
+    public void setValueSum(int node, double valueSum) {
+        LONG.setVolatile(segment(node), offset(node, VALUE_SUM), Double.doubleToRawLongBits(valueSum));
+    }
+
+    @Override
+    public void addValueSum(int node, double value) {
+        add(segment(node), offset(node, VALUE_SUM), value);
+    }
+
+    @Override
+    public double getSquareSum(int node) {
+        return Double.longBitsToDouble((long)LONG.getVolatile(segment(node), offset(node, SQUARE_SUM)));
+    }
+
+    @Override
+    public void setSquareSum(int node, double squareSum) {
+        LONG.setVolatile(segment(node), offset(node, SQUARE_SUM), Double.doubleToRawLongBits(squareSum));
+    }
+
+    @Override
+    public void addSquareSum(int node, double square) {
+        add(segment(node), offset(node, SQUARE_SUM), square);
+    }
+
+    @Override
+    public int getAmafVisits(int node) {
+        return (int)INT.getVolatile(segment(node), offset(node, AMAF_VISITS));
+    }
+
+    @Override
+    public void setAmafVisits(int node, int visits) {
+        INT.setVolatile(segment(node), offset(node, AMAF_VISITS), visits);
+    }
+
+    @Override
+    public void addAmafVisits(int node, int visits) {
+        INT.getAndAdd(segment(node), offset(node, AMAF_VISITS), visits);
+    }
+
+    @Override
+    public double getAmafValueSum(int node) {
+        return Double.longBitsToDouble((long)LONG.getVolatile(segment(node), offset(node, AMAF_VALUE_SUM)));
+    }
+
+    @Override
+    public void setAmafValueSum(int node, double valueSum) {
+        LONG.setVolatile(segment(node), offset(node, AMAF_VALUE_SUM), Double.doubleToRawLongBits(valueSum));
+    }
+
+    @Override
+    public void addAmafValueSum(int node, double value) {
+        add(segment(node), offset(node, AMAF_VALUE_SUM), value);
+    }
+
+    @Override
+    public float getPrior(int node) {
+        return Float.intBitsToFloat((int)INT.get(segment(node), offset(node, PRIOR)));
+    }
+
+    @Override
+    public void setPrior(int node, float prior) {
+        INT.set(segment(node), offset(node, PRIOR), Float.floatToRawIntBits(prior));
+    }
+
+    @Override
+    public long getLastVisit(int node) {
+        return (long)LONG.get(segment(node), offset(node, LAST_VISIT));
+    }
+
+    @Override
+    public void setLastVisit(int node, long time) {
+        LONG.set(segment(node), offset(node, LAST_VISIT), time);
+    }
+
+    @Override
+    public long getHash(int node) {
+        return (long)LONG.get(segment(node), offset(node, HASH));
+    }
+
+    @Override
+    public void setHash(int node, long hash) {
+        LONG.set(segment(node), offset(node, HASH), hash);
+    }
+
+    /**
+     * Adds to a double stored as bits, atomically
+     * @param buffer the buffer holding the double
+     * @param offset where the double is in the buffer
+     * @param value how much to add
+     */
+    private static void add(ByteBuffer buffer, int offset, double value) {
+        long current, next;
+        do {
+            current = (long)LONG.getVolatile(buffer, offset);
+            next = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value);
+        } while(!LONG.compareAndSet(buffer, offset, current, next));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,272 @@
+package chessai;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Counts the leaves of the legal move tree to a fixed depth (perft),
+ * to check the move generator and to time it<br>
+ * <br>
+ * REFERENCE_POSITIONS holds the standard test positions with their known
+ * counts: the start position, Kiwipete and the other positions from the
+ * Chess Programming Wiki, and short positions for the edge cases of
+ * en passant, castling and promotion. Running this class checks them all
+ * and prints the nodes per second; a depth or "divide" may be given.
+ * @author Jed Wang
+ */
+public class Perft {
+    /**
+     * The most leaves a reference position is counted to when no depth is given
+     */
+    public static final long DEFAULT_NODE_LIMIT = 5000000;
+
+    /**
+     * The standard test positions and their known counts
+     */
+    public static final Position[] REFERENCE_POSITIONS = {
+        new Position("start position", BitBoard.STARTING_FEN,
+                20, 400, 8902, 197281, 4865609, 119060324),
+        new Position("Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                48, 2039, 97862, 4085603, 193690690),
+        new Position("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                14, 191, 2812, 43238, 674624, 11030083),
+        new Position("position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                6, 264, 9467, 422333, 15833292),
+        new Position("position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                44, 1486, 62379, 2103487, 89941194),
+        new Position("position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                46, 2079, 89890, 3894594, 164075551),
+        new Position("illegal en passant 1", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", 6, 1134888),
+        new Position("illegal en passant 2", "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", 6, 1015133),
+        new Position("en passant gives check", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", 6, 1440467),
+        new Position("short castling gives check", "5k2/8/8/8/8/8/8/4K2R w K - 0 1", 6, 661072),
+        new Position("long castling gives check", "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", 6, 803711),
+        new Position("castling rights", "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", 4, 1274206),
+        new Position("castling prevented", "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", 4, 1720476),
+        new Position("promotion out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6, 3821001),
+        new Position("discovered check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 5, 1004658),
+        new Position("promotion gives check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6, 217342),
+        new Position("underpromotion gives check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92683),
+        new Position("self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1", 6, 2217),
+        new Position("stalemate and checkmate 1", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7, 567584),
+        new Position("stalemate and checkmate 2", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4, 23527),
+    };
+
+    /**
+     * The position the moves are played on
+     */
+    private final BitBoard board;
+
+    /**
+     * One move buffer for each ply, so that nothing is allocated while counting
+     */
+    private int[][] moves = new int[0][];
+
+    /**
+     * Creates a Perft from a position
+     * @param position the position, which is copied
+     */
+    public Perft(BitBoard position) {
+        board = new BitBoard(position);
+    }
+
+    /**
+     * Creates a Perft from a ChessBoard
+     * @param cb the position, which is copied
+     */
+    public Perft(ChessBoard cb) {
+        this(cb.getBitBoard());
+    }
+
+    /**
+     * Creates a Perft from a FEN string
+     * @param fen the position
+     */
+    public Perft(String fen) {
+        board = new BitBoard(fen);
+    }
+
+    /**
+     * Counts the leaves of the legal move tree
+     * @param depth how many half moves deep
+     * @return how many legal move sequences of that length there are
+     */
+    public long perft(int depth) {
+        if(depth < 0) throw new IllegalArgumentException("Invalid depth: " + depth);
+        ensureDepth(depth);
+        return count(depth);
+    }
+
+    /**
+     * Counts the leaves under each legal move, printing one line per move
+     * @param depth how many half moves deep, at least 1
+     * @param out where to print the counts
+     * @return the total count
+     */
+    public long divide(int depth, PrintStream out) {
+        if(depth < 1) throw new IllegalArgumentException("Invalid depth: " + depth);
+        ensureDepth(depth);
+        int[] buffer = moves[depth];
+        int n = MoveGenerator.generateLegal(board, buffer, 0);
+        long total = 0;
+        for(int i = 0; i < n; i++) {
+            board.makeMove(buffer[i]);
+            long count = count(depth - 1);
+            board.unmakeMove();
+            out.println(Move.toString(buffer[i]) + ": " + count);
+            total += count;
+        }
+        out.println("Moves: " + n + "\tNodes: " + total);
+        return total;
+    }
+
+    /**
+     * Makes sure there is a move buffer for every ply
+     * @param depth how many half moves deep the count goes
+     */
+    private void ensureDepth(int depth) {
+        if(moves.length < depth + 1) {
+            moves = new int[depth + 1][MoveGenerator.MAX_MOVES];
+        }
+    }
+
+    /**
+     * Counts the leaves under the current position
+     * @param depth how many half moves deep
+     * @return the count
+     */
+    private long count(int depth) {
+        if(depth == 0) return 1;
+        int[] buffer = moves[depth];
+        int n = MoveGenerator.generateLegal(board, buffer, 0);
+        // every legal move is a leaf, so there is no need to play them
+        if(depth == 1) return n;
+        long total = 0;
+        for(int i = 0; i < n; i++) {
+            board.makeMove(buffer[i]);
+            total += count(depth - 1);
+            board.unmakeMove();
+        }
+        return total;
+    }
+
+    /**
+     * Checks every reference position and prints how fast moves were generated<br>
+     * With no arguments, each position is counted to every depth whose count
+     * is at most DEFAULT_NODE_LIMIT. With a depth, every known count up to that
+     * depth is checked. "divide depth [fen]" prints the count under each move instead.
+     * @param args the depth, or "divide", the depth and the FEN
+     */
+    public static void main(String[] args) {
+        if(args.length > 0 && args[0].equals("divide")) {
+            int depth = Integer.parseInt(args[1]);
+            String fen = (args.length > 2)?String.join(" ", Arrays.copyOfRange(args, 2, args.length))
+                    :BitBoard.STARTING_FEN;
+            new Perft(fen).divide(depth, System.out);
+            return;
+        }
+        int maxDepth = (args.length > 0)?Integer.parseInt(args[0]):Integer.MAX_VALUE;
+        long nodes = 0, nanos = 0;
+        int failures = 0;
+        for(Position p : REFERENCE_POSITIONS) {
+            Perft perft = new Perft(p.getFEN());
+            for(int depth = 1; depth <= Math.min(maxDepth, p.getMaxDepth()); depth++) {
+                long expected = p.getCount(depth);
+                if(expected < 0 || (maxDepth == Integer.MAX_VALUE && expected > DEFAULT_NODE_LIMIT)) continue;
+                long start = System.nanoTime();
+                long count = perft.perft(depth);
+                long elapsed = System.nanoTime() - start;
+                nodes += count;
+                nanos += elapsed;
+                boolean ok = count == expected;
+                if(!ok) failures++;
+                System.out.println(p.getName() + "\tdepth " + depth + "\t" + count
+                        + ((ok)?"\tOK":"\tFAILED, expected " + expected)
+                        + "\t" + elapsed / 1000000 + " ms");
+            }
+        }
+        System.out.println("Nodes: " + nodes + "\tTime: " + nanos / 1000000 + " ms\tNodes per second: "
+                + ((nanos == 0)?0:nodes * 1000000000L / nanos) + "\tFailures: " + failures);
+        if(failures > 0) System.exit(1);
+    }
+
+    /**
+     * A test position and its known perft counts
+     */
+    public static class Position {
+        /**
+         * What the position tests
+         */
+        private final String name;
+
+        /**
+         * The position
+         */
+        private final String fen;
+
+        /**
+         * The known count at each depth, from depth 1, or -1 where it is not known
+         */
+        private final long[] counts;
+
+        /**
+         * Creates a position with known counts from depth 1 on
+         * @param name what the position tests
+         * @param fen the position
+         * @param counts the count at each depth, from depth 1
+         */
+        public Position(String name, String fen, long... counts) {
+            this.name = name;
+            this.fen = fen;
+            this.counts = counts.clone();
+        }
+
+        /**
+         * Creates a position with one known count
+         * @param name what the position tests
+         * @param fen the position
+         * @param depth the depth the count is known at
+         * @param count the count
+         */
+        public Position(String name, String fen, int depth, long count) {
+            this.name = name;
+            this.fen = fen;
+            counts = new long[depth];
+            Arrays.fill(counts, -1);
+            counts[depth - 1] = count;
+        }
+
+        /**
+         * Returns what the position tests
+         * @return what the position tests
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the position
+         * @return the FEN string of the position
+         */
+        public String getFEN() {
+            return fen;
+        }
+
+        /**
+         * Returns the deepest depth with a known count
+         * @return the deepest depth with a known count
+         */
+        public int getMaxDepth() {
+            return counts.length;
+        }
+
+        /**
+         * Returns the known count at a depth
+         * @param depth the depth, from 1 to getMaxDepth()
+         * @return the count, or -1 if it is not known
+         */
+        public long getCount(int depth) {
+            return counts[depth - 1];
+        }
+    }
+}
\ No newline at end of file
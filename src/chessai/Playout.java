@@ -0,0 +1,141 @@
+package chessai;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Plays random games, to the end or to a maximum depth, as fast as possible<br>
+ * The board, the move buffer and the random numbers are all kept and reused,
+ * so nothing is allocated while a game is played.
+ * A Playout is not thread-safe; every thread should have its own.
+ * @author Jed Wang
+ */
+public class Playout {
+    /**
+     * How many half moves a game is played for when no limit is given
+     */
+    public static final int DEFAULT_MAX_PLIES = 100;
+
+    /**
+     * The board the games are played on
+     */
+    private final BitBoard board = new BitBoard();
+
+    /**
+     * The buffer the legal moves are generated into
+     */
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * Chooses the random moves
+     */
+    private final SplittableRandom random;
+
+    /**
+     * The moves of the last game
+     */
+    private int[] played = new int[DEFAULT_MAX_PLIES];
+
+    /**
+     * How many half moves the last game lasted
+     */
+    private int plies = 0;
+
+    /**
+     * How many half moves a game is played for before it is evaluated instead
+     */
+    private int maxPlies = DEFAULT_MAX_PLIES;
+
+    /**
+     * Default constructor.
+     */
+    public Playout() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Creates a Playout which chooses its moves with a given random number generator
+     * @param random the random number generator
+     */
+    public Playout(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Plays random legal moves from a position until the game ends<br>
+     * The game ends with checkmate, stalemate, insufficient material
+     * or the fifty move rule. A game still going after the maximum number
+     * of half moves is scored by the Evaluator instead.
+     * The position itself is not changed.
+     * @param position the position to play from
+     * @return 1 if white wins, -1 if black wins, 0 for a draw,
+     * and in between for a game which was cut off
+     */
+    public double play(BitBoard position) {
+        board.copyFrom(position);
+        plies = 0;
+        while(true) {
+            int n = MoveGenerator.generateLegal(board, moves, 0);
+            double result = result(board, n);
+            if(!Double.isNaN(result)) return result;
+            if(plies >= maxPlies) return Evaluator.value(board);
+            int move = moves[random.nextInt(n)];
+            board.makeMove(move);
+            if(plies == played.length) played = Arrays.copyOf(played, plies * 2);
+            played[plies++] = move;
+        }
+    }
+
+    /**
+     * Scores a position if the game is over<br>
+     * The game is over with checkmate, stalemate, insufficient material
+     * or the fifty move rule.
+     * @param board the position
+     * @param legalMoves how many legal moves the player to move has
+     * @return 1 if white has won, -1 if black has, 0 for a draw, or NaN if the game is not over
+     */
+    public static double result(BitBoard board, int legalMoves) {
+        if(legalMoves == 0) {
+            if(!board.inCheck(board.isWhiteToMove())) return 0;
+            return (board.isWhiteToMove())?-1:1;
+        }
+        if(board.getHalfmoveClock() >= 100 || board.insufficientMaterial()) return 0;
+        return Double.NaN;
+    }
+
+    /**
+     * Returns how many half moves a game is played for before it is evaluated instead
+     * @return the maximum number of half moves
+     */
+    public int getMaxPlies() {
+        return maxPlies;
+    }
+
+    /**
+     * Sets how many half moves a game is played for before it is evaluated instead
+     * @param maxPlies the maximum number of half moves, 
+     * Integer.MAX_VALUE to always play games to the end
+     */
+    public void setMaxPlies(int maxPlies) {
+        if(maxPlies < 0) throw new IllegalArgumentException("Invalid depth: " + maxPlies);
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Returns how many half moves the last game lasted
+     * @return how many half moves the last game lasted
+     */
+    public int getPlies() {
+        return plies;
+    }
+
+    /**
+     * Returns one of the moves of the last game
+     * @param ply which half move, from 0 to getPlies() - 1
+     * @return the move, encoded as in Move
+     */
+    public int getPlayed(int ply) {
+        if(ply < 0 || ply >= plies) throw new IndexOutOfBoundsException(ply + "");
+        return played[ply];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package chessai;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects by PUCT, as in AlphaZero: the mean value plus C times the
+ * prior of the child times the square root of the parent's visits
+ * over one more than the child's visits<br>
+ * Children start with the same prior until better ones are set with NodePool.setPrior,
+ * and an unvisited child is taken to be worth nothing.
+ * @author Jed Wang
+ */
+public class PuctPolicy implements SelectionPolicy {
+    /**
+     * The exploration constant used when none is given
+     */
+    public static final double DEFAULT_C = 1.5;
+
+    /**
+     * The exploration constant
+     */
+    private final double c;
+
+    /**
+     * Default constructor.
+     */
+    public PuctPolicy() {
+        this(DEFAULT_C);
+    }
+
+    /**
+     * Creates a PUCT policy
+     * @param c the exploration constant; higher explores more
+     */
+    public PuctPolicy(double c) {
+        if(!(c >= 0)) throw new IllegalArgumentException("Invalid exploration constant: " + c);
+        this.c = c;
+    }
+
+    @Override
+    public int select(NodePool pool, int node, int count, double sign) {
+        int selected = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        double rootVisits = Math.sqrt(pool.getVisits(node));
+        int first = pool.getFirstChild(node);
+        for (int child = first; child < first + count; child++) {
+            int cVisits = pool.getVisits(child);
+            double mean = (cVisits == 0)?0:pool.getValueSum(child) / cVisits;
+            double value = sign * mean
+                    + c * pool.getPrior(child) * rootVisits / (1 + cVisits)
+                    + ThreadLocalRandom.current().nextDouble() * TreeNode.EPSILON;
+            if (value > bestValue) {
+                selected = child;
+                bestValue = value;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the exploration constant
+     * @return the exploration constant
+     */
+    public double getC() {
+        return c;
+    }
+}
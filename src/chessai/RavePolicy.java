@@ -0,0 +1,99 @@
+package chessai;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects by UCT with rapid action value estimation<br>
+ * Every simulation through a node counts for each child whose move was
+ * played later on by the same side (all moves as first, or AMAF), so
+ * siblings share what the simulations found. A child's mean is mixed with
+ * its AMAF mean, which is trusted less as the child gets visits of its own:
+ * the AMAF weight is the square root of K over 3 times the visits plus K.
+ * Unvisited children are not all tried first, as in UCT, but in order of their AMAF means.
+ * @author Jed Wang
+ */
+public class RavePolicy implements SelectionPolicy {
+    /**
+     * The exploration constant used when none is given
+     */
+    public static final double DEFAULT_C = 0.3;
+
+    /**
+     * The number of visits at which a child's own mean and its AMAF mean
+     * weigh about the same, used when none is given
+     */
+    public static final double DEFAULT_EQUIVALENCE = 1000;
+
+    /**
+     * The exploration constant
+     */
+    private final double c;
+
+    /**
+     * The number of visits at which a child's own mean and its AMAF mean weigh about the same
+     */
+    private final double equivalence;
+
+    /**
+     * Default constructor.
+     */
+    public RavePolicy() {
+        this(DEFAULT_C, DEFAULT_EQUIVALENCE);
+    }
+
+    /**
+     * Creates a RAVE policy
+     * @param c the exploration constant; higher explores more
+     * @param equivalence the number of visits at which a child's
+     * own mean and its AMAF mean weigh about the same
+     */
+    public RavePolicy(double c, double equivalence) {
+        if(!(c >= 0)) throw new IllegalArgumentException("Invalid exploration constant: " + c);
+        if(!(equivalence > 0)) throw new IllegalArgumentException("Invalid equivalence: " + equivalence);
+        this.c = c;
+        this.equivalence = equivalence;
+    }
+
+    @Override
+    public int select(NodePool pool, int node, int count, double sign) {
+        int selected = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        double logVisits = Math.log(pool.getVisits(node) + 1);
+        int first = pool.getFirstChild(node);
+        for (int child = first; child < first + count; child++) {
+            int visits = pool.getVisits(child);
+            double beta = Math.sqrt(equivalence / (3 * visits + equivalence));
+            double mean = (visits == 0)?0:pool.getValueSum(child) / visits;
+            double amafMean = pool.getAmafValueSum(child) / (pool.getAmafVisits(child) + TreeNode.EPSILON);
+            double value = sign * ((1 - beta) * mean + beta * amafMean)
+                    + c * Math.sqrt(logVisits / (visits + 1))
+                    + ThreadLocalRandom.current().nextDouble() * TreeNode.EPSILON;
+            if (value > bestValue) {
+                selected = child;
+                bestValue = value;
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public boolean usesAmaf() {
+        return true;
+    }
+
+    /**
+     * Returns the exploration constant
+     * @return the exploration constant
+     */
+    public double getC() {
+        return c;
+    }
+
+    /**
+     * Returns the number of visits at which a child's own mean and its AMAF mean weigh about the same
+     * @return the equivalence parameter
+     */
+    public double getEquivalence() {
+        return equivalence;
+    }
+}
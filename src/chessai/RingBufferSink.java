@@ -0,0 +1,154 @@
+package chessai;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A TraceSink which hands messages to another sink on a thread of its own<br>
+ * <br>
+ * Messages go into a fixed ring of slots: a thread claims the next slot with
+ * a compare-and-set, fills it and publishes it, and never waits or locks.
+ * When every slot is still waiting to be written out, the message is dropped
+ * and counted instead. One background thread writes the slots out, in order.
+ * @author Jed Wang
+ */
+public class RingBufferSink implements TraceSink, AutoCloseable {
+    /**
+     * How many slots there are when no number is given
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * Where the messages are finally written
+     */
+    private final TraceSink target;
+
+    /**
+     * The level of the message in each slot
+     */
+    private final int[] levels;
+
+    /**
+     * The message in each slot
+     */
+    private final String[] messages;
+
+    /**
+     * For each slot, one more than the number of the message published in it
+     */
+    private final AtomicLongArray published;
+
+    /**
+     * One less than the number of slots, which is a power of 2
+     */
+    private final int mask;
+
+    /**
+     * The number of the next message to claim a slot
+     */
+    private final AtomicLong next = new AtomicLong();
+
+    /**
+     * The number of the next message to write out
+     */
+    private volatile long consumed = 0;
+
+    /**
+     * How many messages were dropped because the ring was full
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Writes the messages out
+     */
+    private final Thread writer;
+
+    /**
+     * Set once no more messages should be written out
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a sink with the default number of slots, and starts its thread
+     * @param target where the messages are finally written
+     */
+    public RingBufferSink(TraceSink target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a sink, and starts its thread
+     * @param target where the messages are finally written
+     * @param capacity how many messages may wait to be written, rounded up to a power of 2
+     */
+    public RingBufferSink(TraceSink target, int capacity) {
+        if(capacity <= 0 || capacity > 1 << 30) throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity) size <<= 1;
+        this.target = target;
+        levels = new int[size];
+        messages = new String[size];
+        published = new AtomicLongArray(size);
+        mask = size - 1;
+        writer = new Thread(this::run, "trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void accept(int level, String message) {
+        long n;
+        do {
+            n = next.get();
+            if(n - consumed > mask) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while(!next.compareAndSet(n, n + 1));
+        int slot = (int)n & mask;
+        levels[slot] = level;
+        messages[slot] = message;
+        published.lazySet(slot, n + 1);
+    }
+
+    /**
+     * Writes the messages out, in order, until closed
+     */
+    private void run() {
+        while(true) {
+            long n = consumed;
+            int slot = (int)n & mask;
+            if(published.get(slot) == n + 1) {
+                target.accept(levels[slot], messages[slot]);
+                messages[slot] = null;
+                consumed = n + 1;
+            } else if(closed && n == next.get()) {
+                return;
+            } else {
+                LockSupport.parkNanos(100000);
+            }
+        }
+    }
+
+    /**
+     * Returns how many messages were dropped because the ring was full
+     * @return how many messages were dropped
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes out the messages still waiting, then stops the thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch(InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
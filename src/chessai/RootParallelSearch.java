@@ -0,0 +1,159 @@
+package chessai;
+
+import java.util.function.Supplier;
+
+/**
+ * Searches several independent Monte Carlo trees at once, one per thread<br>
+ * Each tree has its own ChessBoard, NodePool and random numbers
+ * (every thread draws from its own ThreadLocalRandom), so the trees share
+ * nothing while searching. Afterwards the visits of the roots' children
+ * are summed to choose a move. The pools are made once, from a NodeStorage
+ * supplier, so that they may be sized or kept off the heap, and reused by every search.
+ * @author Jed Wang
+ */
+public class RootParallelSearch {
+    /**
+     * The position being searched
+     */
+    private final ChessBoard cb;
+
+    /**
+     * Where each tree is stored
+     */
+    private final NodePool[] pools;
+
+    /**
+     * How every tree is searched
+     */
+    private final SearchSettings settings = new SearchSettings();
+
+    /**
+     * The summed visits of each legal move, indexed as in ChessBoard.movePiece(int)<br>
+     * null until a search has finished
+     */
+    private long[] visits = null;
+
+    /**
+     * Creates a search using one tree per processor
+     * @param cb the position to search
+     */
+    public RootParallelSearch(ChessBoard cb) {
+        this(cb, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a search with pools of the default capacity on the heap
+     * @param cb the position to search
+     * @param trees how many trees are searched, each on its own thread
+     */
+    public RootParallelSearch(ChessBoard cb, int trees) {
+        this(cb, trees, NodePool.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a search with pools on the heap
+     * @param cb the position to search
+     * @param trees how many trees are searched, each on its own thread
+     * @param capacity the most nodes each tree can hold
+     */
+    public RootParallelSearch(ChessBoard cb, int trees, int capacity) {
+        this(cb, trees, () -> new HeapNodeStorage(capacity));
+    }
+
+    /**
+     * Creates a search
+     * @param cb the position to search
+     * @param trees how many trees are searched, each on its own thread
+     * @param storage makes where each tree is stored, called once per tree
+     */
+    public RootParallelSearch(ChessBoard cb, int trees, Supplier<? extends NodeStorage> storage) {
+        if(trees <= 0) throw new IllegalArgumentException("Invalid number of trees: " + trees);
+        this.cb = cb;
+        pools = new NodePool[trees];
+        for(int i = 0; i < trees; i++) {
+            pools[i] = new NodePool(storage.get());
+        }
+    }
+
+    /**
+     * Searches every tree, then sums the visits of the roots' children
+     * @param iterations how many times selectAction() is called on each tree
+     */
+    public void search(int iterations) {
+        TreeNode[] roots = new TreeNode[pools.length];
+        Thread[] workers = new Thread[pools.length];
+        for(int i = 0; i < workers.length; i++) {
+            TreeNode root = new TreeNode(new ChessBoard(cb), pools[i], settings);
+            roots[i] = root;
+            workers[i] = new Thread(() -> {
+                for(int j = 0; j < iterations && !Thread.currentThread().isInterrupted(); j++) {
+                    root.selectAction();
+                }
+            }, "mcts-root-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        try {
+            for(Thread worker : workers) {
+                worker.join();
+            }
+        } catch(InterruptedException ie) {
+            // stop the workers early, and let the caller know
+            for(Thread worker : workers) {
+                worker.interrupt();
+            }
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // children may be sorted, so each is matched to the legal move it plays
+        long[] sums = new long[cb.numOfLegalMoves()];
+        for(TreeNode root : roots) {
+            for(int i = 0; i < root.arity(); i++) {
+                TreeNode child = root.getChild(i);
+                sums[cb.indexOfLegalMove(child.getMove())] += child.getVisits();
+            }
+        }
+        visits = sums;
+    }
+
+    /**
+     * Returns the summed visits of a legal move
+     * @param whichMove which move, as numbered by ChessBoard.movePiece(int)
+     * @return the visits of that move, summed over every tree
+     */
+    public long getVisits(int whichMove) {
+        if(visits == null) throw new IllegalStateException("No search has finished");
+        return visits[whichMove];
+    }
+
+    /**
+     * Determines the legal move with the most visits over every tree
+     * @return which move, as numbered by ChessBoard.movePiece(int),
+     * or -1 if there are no legal moves
+     */
+    public int bestMove() {
+        if(visits == null) throw new IllegalStateException("No search has finished");
+        int best = -1;
+        for(int i = 0; i < visits.length; i++) {
+            if(best == -1 || visits[i] > visits[best]) best = i;
+        }
+        return best;
+    }
+
+    /**
+     * Returns how every tree is searched
+     * @return the settings shared by the trees
+     */
+    public SearchSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Returns how many trees are searched
+     * @return how many trees are searched
+     */
+    public int getTrees() {
+        return pools.length;
+    }
+}
\ No newline at end of file
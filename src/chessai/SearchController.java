@@ -0,0 +1,284 @@
+package chessai;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a Monte Carlo tree search within a budget and picks a move<br>
+ * The budget may be any mix of wall-clock time, nodes added to the tree
+ * and iterations; the search stops as soon as any of them runs out,
+ * or when stop() is called. Each iteration is short, so a time limit
+ * is overshot by at most one iteration per thread.<br>
+ * <br>
+ * When the NodePool fills up, the search pauses while the subtrees searched
+ * least recently are pruned, so that long searches keep growing the tree.
+ * @author Jed Wang
+ */
+public class SearchController implements SearchEngine {
+    /**
+     * The root of the tree searched<br>
+     * Moves down the tree as moves are played
+     */
+    private TreeNode root;
+
+    /**
+     * How long a search may take, in milliseconds
+     */
+    private long timeLimit = UNLIMITED;
+
+    /**
+     * How many nodes a search may add to the tree
+     */
+    private long nodeLimit = UNLIMITED;
+
+    /**
+     * How many times a search may descend the tree
+     */
+    private long iterationLimit = UNLIMITED;
+
+    /**
+     * How many threads search the tree
+     */
+    private int threads = 1;
+
+    /**
+     * How much of the NodePool is kept when it fills up and is pruned
+     */
+    private double pruneTarget = 0.5;
+
+    /**
+     * Set to stop the search early
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * The counters of the current search, or of the last one
+     */
+    private final SearchMetrics metrics;
+
+    /**
+     * Creates a controller searching a new tree
+     * @param cb the position to search
+     */
+    public SearchController(ChessBoard cb) {
+        this(new TreeNode(cb));
+    }
+
+    /**
+     * Creates a controller searching an existing tree
+     * @param root the root of the tree to search
+     */
+    public SearchController(TreeNode root) {
+        this.root = root;
+        metrics = new SearchMetrics(root.getPool());
+    }
+
+    /**
+     * Sets how long a search may take
+     * @param millis the time limit in milliseconds, or UNLIMITED
+     * @return this SearchController
+     */
+    @Override
+    public SearchController setTimeLimit(long millis) {
+        if(millis <= 0) throw new IllegalArgumentException("Invalid time limit: " + millis);
+        timeLimit = millis;
+        return this;
+    }
+
+    /**
+     * Sets how many nodes a search may add to the tree
+     * @param nodes the node limit, or UNLIMITED
+     * @return this SearchController
+     */
+    @Override
+    public SearchController setNodeLimit(long nodes) {
+        if(nodes <= 0) throw new IllegalArgumentException("Invalid node limit: " + nodes);
+        nodeLimit = nodes;
+        return this;
+    }
+
+    /**
+     * Sets how many times a search may descend the tree<br>
+     * Each iteration ends in a simulation, a leaf evaluation or a finished game
+     * @param iterations the iteration limit, or UNLIMITED
+     * @return this SearchController
+     */
+    public SearchController setIterationLimit(long iterations) {
+        if(iterations <= 0) throw new IllegalArgumentException("Invalid iteration limit: " + iterations);
+        iterationLimit = iterations;
+        return this;
+    }
+
+    /**
+     * Sets how many threads search the tree at once
+     * @param threads how many threads search the tree
+     * @return this SearchController
+     */
+    public SearchController setThreads(int threads) {
+        if(threads <= 0) throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets how much of the NodePool is kept when it fills up during a search
+     * @param fraction the fraction of the capacity to prune down to
+     * @return this SearchController
+     */
+    public SearchController setPruneTarget(double fraction) {
+        if(!(fraction > 0 && fraction < 1)) throw new IllegalArgumentException("Invalid prune target: " + fraction);
+        pruneTarget = fraction;
+        return this;
+    }
+
+    /**
+     * Stops the search in progress after the current iterations;
+     * may be called from any thread
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Moves the root down to the position after a move, keeping its subtree<br>
+     * Call this for every move played, by either side, between searches
+     * @param move the move played, encoded as in Move
+     */
+    @Override
+    public void play(int move) {
+        root = root.advance(move);
+    }
+
+    /**
+     * Moves the root down to the position after a move, keeping its subtree
+     * @param fromWhere from where a piece is moved
+     * @param toWhere to where a piece is moved
+     * @param promotion the piece promoted to, as in MoveRecorder, or 0 if there is none
+     */
+    public void play(String fromWhere, String toWhere, int promotion) {
+        play(Move.create(BitBoard.square(fromWhere), BitBoard.square(toWhere), promotion, 0));
+    }
+
+    @Override
+    public ChessBoard getBoard() {
+        return root.getBoard();
+    }
+
+    /**
+     * Returns the root of the tree searched
+     * @return the root of the tree searched
+     */
+    public TreeNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns how the tree is searched: the selection policy, the simulations and progressive widening<br>
+     * They belong to this tree alone, and are kept as the root moves down
+     * @return the settings of the tree
+     */
+    public SearchSettings getSettings() {
+        return root.getSettings();
+    }
+
+    /**
+     * Returns the live counters of the current search, or of the last one<br>
+     * They may be read while a search runs, or exported with SearchMetrics.register()
+     * @return the metrics
+     */
+    @Override
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Searches until the budget runs out or stop() is called<br>
+     * Only the root is still valid afterwards if the NodePool had to be pruned
+     * @return the move with the most visits, and how the search went
+     */
+    @Override
+    public SearchResult search() {
+        if(timeLimit == UNLIMITED && nodeLimit == UNLIMITED && iterationLimit == UNLIMITED)
+            throw new IllegalStateException("No limit set");
+        stopped = false;
+        metrics.start();
+        long start = System.nanoTime();
+        long deadline = (timeLimit == UNLIMITED)?UNLIMITED:start + timeLimit * 1000000L;
+        AtomicLong iterations = new AtomicLong(), nodes = new AtomicLong();
+        NodePool pool = root.getPool();
+        AtomicBoolean full = new AtomicBoolean(), pruning = new AtomicBoolean(true);
+        Runnable worker = () -> {
+            while(!stopped && !full.get()) {
+                if(nodes.get() >= nodeLimit || (deadline != UNLIMITED && System.nanoTime() - deadline >= 0)) {
+                    break;
+                }
+                if(pruning.get() && pool.capacity() - pool.size() < MoveGenerator.MAX_MOVES) {
+                    full.set(true);
+                    break;
+                }
+                // claim an iteration first, so that threads together never run over the limit
+                if(iterations.incrementAndGet() > iterationLimit) {
+                    iterations.decrementAndGet();
+                    break;
+                }
+                nodes.addAndGet(root.selectAction(metrics));
+            }
+        };
+        do {
+            full.set(false);
+            run(worker);
+            // keep searching without pruning if it would not make room
+            if(full.get() && !stopped
+                    && pool.prune((int)(pool.capacity() * pruneTarget)) < MoveGenerator.MAX_MOVES)
+                pruning.set(false);
+        } while(full.get() && !stopped);
+        metrics.finish();
+        long elapsed = (System.nanoTime() - start) / 1000000L;
+
+        int best = -1;
+        for(int i = 0; i < root.arity(); i++) {
+            if(best == -1 || root.getChild(i).getVisits() > root.getChild(best).getVisits()) best = i;
+        }
+        if(best == -1) {
+            return new SearchResult(Move.NONE, -1, 0, 0, iterations.get(), nodes.get(), metrics.getMaxDepth(), elapsed);
+        }
+        TreeNode chosen = root.getChild(best);
+        int visits = chosen.getVisits();
+        return new SearchResult(chosen.getMove(), root.getBoard().indexOfLegalMove(chosen.getMove()), visits,
+                (visits == 0)?0:chosen.getTotalValue() / visits, iterations.get(), nodes.get(),
+                metrics.getMaxDepth(), elapsed);
+    }
+
+    /**
+     * Runs a worker on every search thread and waits for them all to finish
+     * @param worker what each thread runs
+     */
+    private void run(Runnable worker) {
+        if(threads == 1) {
+            worker.run();
+            return;
+        }
+        Thread[] workers = new Thread[threads];
+        for(int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(worker, "mcts-worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        // an interrupt stops the search, but every worker must still have finished
+        // before the tree is pruned or read, so the joining goes on
+        boolean interrupted = false;
+        for(Thread t : workers) {
+            while(true) {
+                try {
+                    t.join();
+                    break;
+                } catch(InterruptedException ie) {
+                    stopped = true;
+                    interrupted = true;
+                }
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package chessai;
+
+/**
+ * Something which searches a position and picks a move<br>
+ * SearchController runs a Monte Carlo tree search and AlphaBetaSearch
+ * a depth-first minimax search; either can be picked for a workload.
+ * A search stops when any of its limits runs out or stop() is called.
+ * @author Jed Wang
+ */
+public interface SearchEngine {
+    /**
+     * Stands for no limit
+     */
+    long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * Sets how long a search may take
+     * @param millis the time limit in milliseconds, or UNLIMITED
+     * @return this SearchEngine
+     */
+    SearchEngine setTimeLimit(long millis);
+
+    /**
+     * Sets how many nodes a search may add or visit
+     * @param nodes the node limit, or UNLIMITED
+     * @return this SearchEngine
+     */
+    SearchEngine setNodeLimit(long nodes);
+
+    /**
+     * Searches until a limit runs out or stop() is called
+     * @return the move chosen, and how the search went
+     */
+    SearchResult search();
+
+    /**
+     * Stops the search in progress; may be called from any thread
+     */
+    void stop();
+
+    /**
+     * Moves the position searched on by a move<br>
+     * Call this for every move played, by either side, between searches
+     * @param move the move played, encoded as in Move
+     */
+    void play(int move);
+
+    /**
+     * Returns the position searched
+     * @return the position searched
+     */
+    ChessBoard getBoard();
+
+    /**
+     * Returns the live counters of the current search, or of the last one
+     * @return the metrics
+     */
+    SearchMetrics getMetrics();
+}
\ No newline at end of file
@@ -0,0 +1,304 @@
+package chessai;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Live counters of a search: how many iterations, playouts and nodes there were,
+ * how deep the selections went, and where the time went<br>
+ * <br>
+ * Every search thread records into the same SearchMetrics through striped
+ * counters, so recording costs a few uncontended adds per iteration.
+ * The counters can be read while the search runs, through the getters
+ * or over JMX once register() has been called. The time of each phase is
+ * summed over every thread, so with many threads it adds up to more than
+ * the elapsed time; how it is split tells where a slow move went.
+ * @author Jed Wang
+ */
+public class SearchMetrics implements SearchMetricsMXBean {
+    /**
+     * The domain of the names registered over JMX
+     */
+    public static final String JMX_DOMAIN = "chessai";
+
+    /**
+     * The tree searched, for its size, or null
+     */
+    private final NodePool pool;
+
+    /**
+     * When the search started, from System.nanoTime()
+     */
+    private volatile long start = System.nanoTime();
+
+    /**
+     * How long the last search took in nanoseconds, or -1 while one runs
+     */
+    private volatile long elapsed = 0;
+
+    /**
+     * How many times the tree was descended
+     */
+    private final LongAdder iterations = new LongAdder();
+
+    /**
+     * How many simulations were played or leaves evaluated
+     */
+    private final LongAdder playouts = new LongAdder();
+
+    /**
+     * How many half moves the simulations played in all
+     */
+    private final LongAdder rolloutPlies = new LongAdder();
+
+    /**
+     * How many nodes were added to the tree
+     */
+    private final LongAdder nodes = new LongAdder();
+
+    /**
+     * How many expanded children reached positions already in the transposition table
+     */
+    private final LongAdder transpositionHits = new LongAdder();
+
+    /**
+     * How long each phase took, in nanoseconds
+     */
+    private final LongAdder selectNanos = new LongAdder(), expandNanos = new LongAdder(),
+            simulateNanos = new LongAdder(), backpropNanos = new LongAdder();
+
+    /**
+     * The deepest node a selection reached
+     */
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    /**
+     * The name this is registered under over JMX, or null
+     */
+    private ObjectName name = null;
+
+    /**
+     * Creates metrics not tied to a tree
+     */
+    public SearchMetrics() {
+        this(null);
+    }
+
+    /**
+     * Creates metrics for a tree
+     * @param pool where the tree is stored, so that its size can be read
+     */
+    public SearchMetrics(NodePool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Clears every counter and starts the clock
+     */
+    public void start() {
+        iterations.reset();
+        playouts.reset();
+        rolloutPlies.reset();
+        nodes.reset();
+        transpositionHits.reset();
+        selectNanos.reset();
+        expandNanos.reset();
+        simulateNanos.reset();
+        backpropNanos.reset();
+        maxDepth.set(0);
+        start = System.nanoTime();
+        elapsed = -1;
+    }
+
+    /**
+     * Stops the clock
+     */
+    public void finish() {
+        elapsed = System.nanoTime() - start;
+    }
+
+    /**
+     * Records one descent of the tree
+     * @param depth how many half moves below the root the selection reached
+     * @param added how many nodes were added to the tree
+     * @param hits how many of the added nodes reached positions already in the transposition table
+     * @param playout whether a simulation was played or a leaf evaluated
+     * @param plies how many half moves the simulation played
+     * @param select how long selecting took, in nanoseconds
+     * @param expand how long expanding took, in nanoseconds
+     * @param simulate how long the simulation or evaluation took, in nanoseconds
+     * @param backprop how long backing up the result took, in nanoseconds
+     */
+    public void recordIteration(int depth, int added, int hits, boolean playout, int plies,
+            long select, long expand, long simulate, long backprop) {
+        iterations.increment();
+        if(playout) {
+            playouts.increment();
+            rolloutPlies.add(plies);
+        }
+        if(added != 0) nodes.add(added);
+        if(hits != 0) transpositionHits.add(hits);
+        raiseMaxDepth(depth);
+        selectNanos.add(select);
+        expandNanos.add(expand);
+        simulateNanos.add(simulate);
+        backpropNanos.add(backprop);
+    }
+
+    /**
+     * Records nodes visited by a depth-first search, which has no iterations of its own to record
+     * @param count how many nodes were visited
+     */
+    public void recordNodes(long count) {
+        nodes.add(count);
+    }
+
+    /**
+     * Records one iteration of a deepening search
+     * @param depth how deep the iteration searched, in half moves
+     */
+    public void recordDepth(int depth) {
+        iterations.increment();
+        raiseMaxDepth(depth);
+    }
+
+    /**
+     * Raises the deepest depth reached, if a depth is deeper<br>
+     * Only written when deeper, so that the threads rarely contend on it
+     * @param depth the depth reached
+     */
+    private void raiseMaxDepth(int depth) {
+        int max;
+        while(depth > (max = maxDepth.get()) && !maxDepth.compareAndSet(max, depth));
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server,
+     * as chessai:type=SearchMetrics,name=the name given
+     * @param name what tells these metrics apart from others
+     * @return the name registered
+     * @throws JMException if the name is taken or cannot be registered
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        if(this.name != null) throw new IllegalStateException("Already registered as " + this.name);
+        ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=SearchMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.name = objectName;
+        return objectName;
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server, if they were registered
+     * @throws JMException if they cannot be removed
+     */
+    public synchronized void unregister() throws JMException {
+        if(name == null) return;
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        name = null;
+    }
+
+    /**
+     * Returns how long the search has run
+     * @return the time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        long e = elapsed;
+        return (e < 0)?System.nanoTime() - start:e;
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return getElapsedNanos() / 1000000L;
+    }
+
+    @Override
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    @Override
+    public long getPlayouts() {
+        return playouts.sum();
+    }
+
+    @Override
+    public double getPlayoutsPerSecond() {
+        return perSecond(getPlayouts());
+    }
+
+    @Override
+    public double getAverageRolloutLength() {
+        long n = getPlayouts();
+        return (n == 0)?0:(double)rolloutPlies.sum() / n;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public double getNodesPerSecond() {
+        return perSecond(getNodes());
+    }
+
+    @Override
+    public int getTreeSize() {
+        return (pool == null)?0:pool.size();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public long getTranspositionHits() {
+        return transpositionHits.sum();
+    }
+
+    @Override
+    public long getSelectMillis() {
+        return selectNanos.sum() / 1000000L;
+    }
+
+    @Override
+    public long getExpandMillis() {
+        return expandNanos.sum() / 1000000L;
+    }
+
+    @Override
+    public long getSimulateMillis() {
+        return simulateNanos.sum() / 1000000L;
+    }
+
+    @Override
+    public long getBackpropMillis() {
+        return backpropNanos.sum() / 1000000L;
+    }
+
+    /**
+     * Turns a count into a rate over the time the search has run
+     * @param count the count
+     * @return the count per second
+     */
+    private double perSecond(long count) {
+        long nanos = getElapsedNanos();
+        return (nanos <= 0)?0:count * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Iterations: " + getIterations() + " \tPlayouts: " + getPlayouts()
+                + String.format(" (%.0f/s)", getPlayoutsPerSecond())
+                + " \tRollout: " + String.format("%.1f", getAverageRolloutLength())
+                + " \tNodes: " + getNodes() + String.format(" (%.0f/s)", getNodesPerSecond())
+                + " \tTree: " + getTreeSize() + " \tDepth: " + getMaxDepth()
+                + " \tTT hits: " + getTranspositionHits()
+                + " \tSelect/Expand/Simulate/Backprop: " + getSelectMillis() + "/" + getExpandMillis()
+                + "/" + getSimulateMillis() + "/" + getBackpropMillis() + " ms";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package chessai;
+
+/**
+ * What SearchMetrics exports over JMX<br>
+ * Every value is of the current search, or of the last one if none is running.
+ * @author Jed Wang
+ */
+public interface SearchMetricsMXBean {
+    /**
+     * Returns how long the search has run
+     * @return the time in milliseconds
+     */
+    long getElapsedMillis();
+
+    /**
+     * Returns how many times the tree was descended
+     * @return the number of iterations
+     */
+    long getIterations();
+
+    /**
+     * Returns how many simulations were played or leaves evaluated
+     * @return the number of playouts
+     */
+    long getPlayouts();
+
+    /**
+     * Returns how many playouts were completed each second
+     * @return the playouts per second
+     */
+    double getPlayoutsPerSecond();
+
+    /**
+     * Returns how many half moves a simulation played on average
+     * @return the average rollout length
+     */
+    double getAverageRolloutLength();
+
+    /**
+     * Returns how many nodes were added to the tree
+     * @return the number of nodes
+     */
+    long getNodes();
+
+    /**
+     * Returns how many nodes were added to the tree each second
+     * @return the nodes per second
+     */
+    double getNodesPerSecond();
+
+    /**
+     * Returns how many nodes the tree has now
+     * @return the size of the tree
+     */
+    int getTreeSize();
+
+    /**
+     * Returns the deepest node a selection reached
+     * @return the depth in half moves below the root
+     */
+    int getMaxDepth();
+
+    /**
+     * Returns how many expanded children reached positions the transposition table already had statistics for
+     * @return the number of hits
+     */
+    long getTranspositionHits();
+
+    /**
+     * Returns how long was spent selecting the nodes to search, over every thread
+     * @return the time in milliseconds
+     */
+    long getSelectMillis();
+
+    /**
+     * Returns how long was spent expanding nodes, over every thread
+     * @return the time in milliseconds
+     */
+    long getExpandMillis();
+
+    /**
+     * Returns how long was spent playing simulations or evaluating leaves, over every thread
+     * @return the time in milliseconds
+     */
+    long getSimulateMillis();
+
+    /**
+     * Returns how long was spent backing up results, over every thread
+     * @return the time in milliseconds
+     */
+    long getBackpropMillis();
+}
\ No newline at end of file
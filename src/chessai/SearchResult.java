@@ -0,0 +1,147 @@
+package chessai;
+
+/**
+ * The outcome of a search: the move chosen and how the search went
+ * @author Jed Wang
+ */
+public class SearchResult {
+    /**
+     * The move chosen, encoded as in Move, or Move.NONE
+     */
+    private final int move;
+
+    /**
+     * Which legal move was chosen, as numbered by ChessBoard.movePiece(int), or -1
+     */
+    private final int moveIndex;
+
+    /**
+     * How many visits the chosen move had
+     */
+    private final long visits;
+
+    /**
+     * The average value of the chosen move, from white's point of view
+     */
+    private final double value;
+
+    /**
+     * How many times a tree search descended the tree, whether it then
+     * played a simulation, evaluated a leaf or reached a finished game
+     */
+    private final long iterations;
+
+    /**
+     * How many nodes were added to the tree, or searched
+     */
+    private final long nodes;
+
+    /**
+     * How deep the search went, in half moves
+     */
+    private final int depth;
+
+    /**
+     * How long the search took, in milliseconds
+     */
+    private final long elapsedMillis;
+
+    /**
+     * Creates a result
+     * @param move the move chosen, encoded as in Move, or Move.NONE
+     * @param moveIndex which legal move was chosen, or -1
+     * @param visits how many visits the chosen move had
+     * @param value the average value of the chosen move, from white's point of view
+     * @param iterations how many times a tree search descended the tree, 0 for a depth-first search
+     * @param nodes how many nodes were added to the tree, or searched
+     * @param depth how deep the search went, in half moves
+     * @param elapsedMillis how long the search took, in milliseconds
+     */
+    public SearchResult(int move, int moveIndex, long visits, double value,
+            long iterations, long nodes, int depth, long elapsedMillis) {
+        this.move = move;
+        this.moveIndex = moveIndex;
+        this.visits = visits;
+        this.value = value;
+        this.iterations = iterations;
+        this.nodes = nodes;
+        this.depth = depth;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Returns the move chosen
+     * @return the move chosen, encoded as in Move, or Move.NONE if there was none
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * Returns which legal move was chosen
+     * @return which legal move was chosen, as numbered by ChessBoard.movePiece(int),
+     * or -1 if there was none
+     */
+    public int getMoveIndex() {
+        return moveIndex;
+    }
+
+    /**
+     * Returns how many visits the chosen move had
+     * @return how many visits the chosen move had, or 0 for a search which does not count visits
+     */
+    public long getVisits() {
+        return visits;
+    }
+
+    /**
+     * Returns the average value of the chosen move
+     * @return the average value of the chosen move, from white's point of view
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Returns how many times a tree search descended the tree<br>
+     * Each descent ends in a simulation, a leaf evaluation or a finished game
+     * @return how many iterations were run, 0 for a depth-first search
+     */
+    public long getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns how many nodes were added to the tree, or searched
+     * @return how many nodes were added to the tree, or searched
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns how deep the search went<br>
+     * For a tree search, how deep the deepest selection went;
+     * for an alpha-beta search, the last depth searched in full
+     * @return the depth in half moves
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns how long the search took
+     * @return how long the search took, in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Move: " + ((move == Move.NONE)?"none":Move.toString(move))
+                + " \tVisits: " + visits + " \tValue: " + String.format("%.3f", value)
+                + " \tIterations: " + iterations + " \tNodes: " + nodes + " \tDepth: " + depth
+                + " \tTime: " + elapsedMillis + " ms";
+    }
+}
\ No newline at end of file
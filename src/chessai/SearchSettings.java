@@ -0,0 +1,137 @@
+package chessai;
+
+/**
+ * How a Monte Carlo tree is searched: how children are selected, how deep
+ * simulations go, whether leaves are evaluated instead, and progressive widening<br>
+ * <br>
+ * Every TreeNode of a tree shares its root's settings, so trees searched
+ * at once, by one RootParallelSearch or by several SearchControllers,
+ * may each be searched their own way. The settings may be changed between
+ * searches; a change during a search applies from the next iteration on,
+ * and only to the trees which share these settings.
+ * @author Jed Wang
+ */
+public class SearchSettings {
+    /**
+     * How many half moves a simulation plays before evaluating the position instead
+     */
+    private volatile int playoutDepth = Playout.DEFAULT_MAX_PLIES;
+
+    /**
+     * How the children to search are selected
+     */
+    private volatile SelectionPolicy selectionPolicy = new UctPolicy();
+
+    /**
+     * Evaluates the leaves instead of simulations, or null to play simulations
+     */
+    private volatile BatchEvaluator leafEvaluator = null;
+
+    /**
+     * How many children progressive widening lets a node with no visits choose from, 0 for no widening
+     */
+    private volatile double wideningC = 0;
+
+    /**
+     * How fast progressive widening lets more children be chosen from, as the visits grow
+     */
+    private volatile double wideningAlpha = 0;
+
+    /**
+     * Default constructor.<br>
+     * Selects by UCT and plays simulations of the default depth, without widening.
+     */
+    public SearchSettings() {
+    }
+
+    /**
+     * Returns how many half moves a simulation plays before evaluating the position instead
+     * @return the maximum depth of a simulation
+     */
+    public int getPlayoutDepth() {
+        return playoutDepth;
+    }
+
+    /**
+     * Sets how many half moves a simulation plays before evaluating the position instead
+     * @param depth the maximum depth of a simulation,
+     * Integer.MAX_VALUE to always play games to the end
+     * @return these SearchSettings
+     */
+    public SearchSettings setPlayoutDepth(int depth) {
+        if(depth < 0) throw new IllegalArgumentException("Invalid depth: " + depth);
+        playoutDepth = depth;
+        return this;
+    }
+
+    /**
+     * Turns on progressive widening: a node may only choose from its first
+     * ceil(c * visits<sup>alpha</sup>) children, which are sorted by MoveOrdering.<br>
+     * Nodes expanded before it was turned on keep the order of the legal moves
+     * @param c how many children a node with no visits may choose from, 0 to turn widening off
+     * @param alpha how fast more children may be chosen from, usually between 0.25 and 0.5
+     * @return these SearchSettings
+     */
+    public SearchSettings setProgressiveWidening(double c, double alpha) {
+        if(!(c >= 0)) throw new IllegalArgumentException("Invalid widening constant: " + c);
+        if(!(alpha >= 0)) throw new IllegalArgumentException("Invalid widening exponent: " + alpha);
+        wideningAlpha = alpha;
+        wideningC = c;
+        return this;
+    }
+
+    /**
+     * Returns how many children a node with no visits may choose from
+     * @return the widening constant, 0 if progressive widening is off
+     */
+    public double getWideningC() {
+        return wideningC;
+    }
+
+    /**
+     * Returns how fast more children may be chosen from as the visits grow
+     * @return the widening exponent
+     */
+    public double getWideningAlpha() {
+        return wideningAlpha;
+    }
+
+    /**
+     * Returns what evaluates the leaves instead of simulations
+     * @return the BatchEvaluator, or null if simulations are played
+     */
+    public BatchEvaluator getLeafEvaluator() {
+        return leafEvaluator;
+    }
+
+    /**
+     * Evaluates the leaves with a BatchEvaluator instead of playing simulations<br>
+     * A leaf is then expanded at once, with the priors the evaluator gives its moves,
+     * and the evaluator's value is backed up.
+     * @param evaluator the BatchEvaluator, or null to play simulations
+     * @return these SearchSettings
+     */
+    public SearchSettings setLeafEvaluator(BatchEvaluator evaluator) {
+        leafEvaluator = evaluator;
+        return this;
+    }
+
+    /**
+     * Returns how the children to search are selected
+     * @return the selection policy
+     */
+    public SelectionPolicy getSelectionPolicy() {
+        return selectionPolicy;
+    }
+
+    /**
+     * Sets how the children to search are selected
+     * @param policy the selection policy
+     * @return these SearchSettings
+     */
+    public SearchSettings setSelectionPolicy(SelectionPolicy policy) {
+        if(policy == null) throw new IllegalArgumentException("No selection policy");
+        selectionPolicy = policy;
+        return this;
+    }
+}
\ No newline at end of file
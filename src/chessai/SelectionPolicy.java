@@ -0,0 +1,30 @@
+package chessai;
+
+/**
+ * How a Monte Carlo tree search picks which child of a node to search next<br>
+ * Values in the tree are from white's side, so a policy is told whose move
+ * it is and should pick the child best for that side.
+ * @author Jed Wang
+ */
+public interface SelectionPolicy {
+    /**
+     * Selects a child of a node to search from<br>
+     * Only the first children are looked at, so that progressive widening
+     * can hold back the rest
+     * @param pool where the tree is stored
+     * @param node the node, which must have children
+     * @param count how many of the node's children to choose from, at least 1
+     * @param sign 1 if white is to move at the node, -1 if black is
+     * @return the child
+     */
+    int select(NodePool pool, int node, int count, double sign);
+
+    /**
+     * Determines whether this policy reads the AMAF statistics,
+     * which are only kept up to date if it does
+     * @return whether this policy uses the AMAF statistics
+     */
+    default boolean usesAmaf() {
+        return false;
+    }
+}
@@ -0,0 +1,107 @@
+package chessai;
+
+/**
+ * Tracing for the engine's hot paths<br>
+ * <br>
+ * Every call is guarded by a comparison with LEVEL, a compile-time constant:
+ * <pre>
+ * if(Trace.LEVEL &gt;= Trace.DEBUG) Trace.log(Trace.DEBUG, "...");
+ * </pre>
+ * so the compiler drops the call, and the building of its message, from every
+ * level above LEVEL. With LEVEL at OFF tracing costs nothing; raise it and
+ * recompile to trace. The messages which are kept go to a TraceSink, the
+ * console unless another is set; a RingBufferSink takes them off the
+ * searching threads.
+ * @author Jed Wang
+ */
+public class Trace {
+    /**
+     * No tracing
+     */
+    public static final int OFF = 0;
+
+    /**
+     * Errors only
+     */
+    public static final int ERROR = 1;
+
+    /**
+     * Rare events worth knowing about
+     */
+    public static final int INFO = 2;
+
+    /**
+     * Every move played
+     */
+    public static final int DEBUG = 3;
+
+    /**
+     * Every step of every search iteration
+     */
+    public static final int TRACE = 4;
+
+    /**
+     * The most detailed level traced; everything above it is compiled out
+     */
+    public static final int LEVEL = OFF;
+
+    /**
+     * Where the messages go
+     */
+    private static volatile TraceSink sink = TraceSink.to(System.out);
+
+    /**
+     * No instances allowed
+     */
+    private Trace() {
+    }
+
+    /**
+     * Sends a message to the sink<br>
+     * Call this only behind a check of LEVEL, so that it is compiled out
+     * @param level how detailed the message is
+     * @param message the message
+     */
+    public static void log(int level, String message) {
+        sink.accept(level, message);
+    }
+
+    /**
+     * Returns where the messages go
+     * @return the sink
+     */
+    public static TraceSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Sets where the messages go
+     * @param sink the sink
+     */
+    public static void setSink(TraceSink sink) {
+        if(sink == null) throw new IllegalArgumentException("No sink");
+        Trace.sink = sink;
+    }
+
+    /**
+     * Returns the name of a level
+     * @param level the level
+     * @return its name
+     */
+    public static String name(int level) {
+        switch(level) {
+            case OFF:
+                return "OFF";
+            case ERROR:
+                return "ERROR";
+            case INFO:
+                return "INFO";
+            case DEBUG:
+                return "DEBUG";
+            case TRACE:
+                return "TRACE";
+            default:
+                return "LEVEL " + level;
+        }
+    }
+}
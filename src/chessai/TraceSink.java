@@ -0,0 +1,25 @@
+package chessai;
+
+import java.io.PrintStream;
+
+/**
+ * Where trace messages go
+ * @author Jed Wang
+ */
+public interface TraceSink {
+    /**
+     * Takes a trace message; may be called by many threads at once
+     * @param level how detailed the message is, as in Trace
+     * @param message the message
+     */
+    void accept(int level, String message);
+
+    /**
+     * Makes a sink which prints each message on a line of its own
+     * @param out where to print
+     * @return the sink
+     */
+    static TraceSink to(PrintStream out) {
+        return (level, message) -> out.println(message);
+    }
+}
@@ -0,0 +1,223 @@
+package chessai;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size table of search statistics keyed by Zobrist hash<br>
+ * Positions reached by different move orders share one entry, so
+ * the Monte Carlo tree becomes a graph. The table never grows:
+ * when a bucket is full, its least visited entry is replaced.<br>
+ * <br>
+ * Every method may be called from many threads at once without locking.
+ * Entries are updated atomically, but an entry can be replaced while
+ * another thread is updating it; the statistics of that position are
+ * then slightly off, which a search can live with.
+ * @author Jed Wang
+ */
+public class TranspositionTable {
+    /**
+     * How many entries are looked at for each hash
+     */
+    private static final int BUCKET_SIZE = 4;
+
+    /**
+     * The number of entries used when none is given
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+
+    /**
+     * The hashes of the positions stored, 0 stands for an empty entry
+     */
+    private final AtomicLongArray keys;
+
+    /**
+     * The number of visits of each entry
+     */
+    private final AtomicIntegerArray visits;
+
+    /**
+     * The sum of the values backed up through each entry,
+     * stored as the bits of doubles so that they can be updated atomically
+     */
+    private final AtomicLongArray valueSums;
+
+    /**
+     * The sum of the squares of the values backed up through each entry, stored like the value sums
+     */
+    private final AtomicLongArray squareSums;
+
+    /**
+     * Used to turn a hash into the first entry of its bucket
+     */
+    private final int mask;
+
+    /**
+     * Default constructor.
+     */
+    public TranspositionTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a table
+     * @param capacity how many entries the table should have,
+     * rounded up to a power of two
+     */
+    public TranspositionTable(int capacity) {
+        if(capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        int size = Math.max(BUCKET_SIZE, Integer.highestOneBit(capacity * 2 - 1));
+        keys = new AtomicLongArray(size);
+        visits = new AtomicIntegerArray(size);
+        valueSums = new AtomicLongArray(size);
+        squareSums = new AtomicLongArray(size);
+        mask = (size - 1) & ~(BUCKET_SIZE - 1);
+    }
+
+    /**
+     * Returns how many visits a position has
+     * @param hash the Zobrist hash of the position
+     * @return how many visits the position has, or 0 if it is not stored
+     */
+    public int getVisits(long hash) {
+        int entry = find(hash);
+        return (entry < 0)?0:visits.get(entry);
+    }
+
+    /**
+     * Returns the sum of the values backed up through a position
+     * @param hash the Zobrist hash of the position
+     * @return the sum of the values, or 0 if it is not stored
+     */
+    public double getValueSum(long hash) {
+        int entry = find(hash);
+        return (entry < 0)?0:Double.longBitsToDouble(valueSums.get(entry));
+    }
+
+    /**
+     * Returns the sum of the squares of the values backed up through a position
+     * @param hash the Zobrist hash of the position
+     * @return the sum of the squares, or 0 if it is not stored
+     */
+    public double getSquareSum(long hash) {
+        int entry = find(hash);
+        return (entry < 0)?0:Double.longBitsToDouble(squareSums.get(entry));
+    }
+
+    /**
+     * Adds a visit with some value to a position, storing it if needed
+     * @param hash the Zobrist hash of the position
+     * @param value the value backed up
+     */
+    public void update(long hash, double value) {
+        add(hash, 1, value);
+    }
+
+    /**
+     * Adds to the visits and the value sum of a position, storing it if needed<br>
+     * Either may be negative, which is how virtual losses are taken back
+     * @param hash the Zobrist hash of the position
+     * @param visits how many visits to add
+     * @param value how much to add to the value sum
+     */
+    public void add(long hash, int visits, double value) {
+        int entry = find(hash);
+        if(entry < 0) entry = replace(hash);
+        if(visits != 0) this.visits.addAndGet(entry, visits);
+        if(value != 0) add(valueSums, entry, value);
+    }
+
+    /**
+     * Adds the square of a value backed up through a position, storing it if needed
+     * @param hash the Zobrist hash of the position
+     * @param square the square of the value
+     */
+    public void addSquare(long hash, double square) {
+        int entry = find(hash);
+        if(entry < 0) entry = replace(hash);
+        if(square != 0) add(squareSums, entry, square);
+    }
+
+    /**
+     * Returns how many entries the table has
+     * @return how many entries the table has
+     */
+    public int capacity() {
+        return keys.length();
+    }
+
+    /**
+     * Removes every entry
+     */
+    public void clear() {
+        for(int i = 0; i < keys.length(); i++) {
+            keys.set(i, 0);
+            visits.set(i, 0);
+            valueSums.set(i, 0);
+            squareSums.set(i, 0);
+        }
+    }
+
+    /**
+     * Finds the entry of a position
+     * @param hash the Zobrist hash of the position
+     * @return the entry, or -1 if it is not stored
+     */
+    private int find(long hash) {
+        long key = keyOf(hash);
+        int bucket = (int)key & mask;
+        for(int i = bucket; i < bucket + BUCKET_SIZE; i++) {
+            if(keys.get(i) == key) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Clears the least visited entry of a position's bucket and gives it to the position<br>
+     * If another thread stores the position first, its entry is used instead
+     * @param hash the Zobrist hash of the position
+     * @return the entry
+     */
+    private int replace(long hash) {
+        long key = keyOf(hash);
+        int bucket = (int)key & mask;
+        while(true) {
+            int entry = bucket;
+            for(int i = bucket; i < bucket + BUCKET_SIZE; i++) {
+                if(keys.get(i) == key) return i;
+                if(visits.get(i) < visits.get(entry)) entry = i;
+            }
+            long old = keys.get(entry);
+            if(keys.compareAndSet(entry, old, key)) {
+                visits.set(entry, 0);
+                valueSums.set(entry, 0);
+                squareSums.set(entry, 0);
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Adds to a double stored as bits, atomically
+     * @param sums the sums, stored as the bits of doubles
+     * @param entry the entry to add to
+     * @param value how much to add
+     */
+    private static void add(AtomicLongArray sums, int entry, double value) {
+        long current, next;
+        do {
+            current = sums.get(entry);
+            next = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value);
+        } while(!sums.compareAndSet(entry, current, next));
+    }
+
+    /**
+     * Turns a hash into the key stored, since 0 marks an empty entry
+     * @param hash the Zobrist hash
+     * @return the key
+     */
+    private static long keyOf(long hash) {
+        return (hash == 0)?1:hash;
+    }
+}
\ No newline at end of file
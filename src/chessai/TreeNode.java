@@ -1,124 +1,316 @@
 package chessai;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Random;
+import java.util.Arrays;
 
 /**
- * A MCTS tree.
+ * A MCTS tree.<br>
+ * The tree itself is stored in a NodePool; a {@code TreeNode} is only
+ * a handle on one node of it. Nodes keep their moves, not boards, so
+ * a search plays the moves down from the root on a scratch BitBoard.
+ * Unless the pool was made without a TranspositionTable, the visits and
+ * values of transposed positions are shared. Every handle on a tree shares
+ * the SearchSettings it is searched with.
  * @author Simon Lucas
  * Tweaked by Jed Wang
  * @created 2010
  */
 public class TreeNode {
     /**
-     * A RNG for tie breaks.
+     * The value of the virtual loss given to a {@code TreeNode} while a search passes through it.<br>
+     * Other threads see one more visit with this value, and so pick other branches.
      */
-    static Random r = new Random();
-    
+    public static final double VIRTUAL_LOSS = -1;
+
     /**
-     * The avaliable number of moves.
-     * Change later on to not be final
+     * The scratch space of each thread, so that searching allocates nothing
      */
-    private int nActions;
-    
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     /**
      * Very small number for tie breaks.
      */
     public static double EPSILON = 1e-6;
 
-    
     /**
-     * This {@code TreeNode}'s children.
+     * Where the whole tree is stored
      */
-    private TreeNode[] children;
-    
+    private final NodePool pool;
+
     /**
-     * The number of total visits.
+     * Which node of the pool this is
      */
-    private double nVisits;
-    
+    private final int index;
+
+    /**
+     * The state of the game at the root of the pool
+     */
+    private final ChessBoard rootBoard;
+
     /**
-     * The value of this {@code TreeNode}.
+     * How the tree is searched, shared by every {@code TreeNode} of it
      */
-    private double totValue;
-    
+    private final SearchSettings settings;
+
     /**
-     * This node's state of the game
+     * This node's state of the game<br>
+     * Only made when asked for, by playing the moves down from the root
      */
-    private ChessBoard cb = new ChessBoard();
+    private volatile ChessBoard cb;
 
+    /**
+     * Creates a root {@code TreeNode} with its own NodePool
+     * @param cb the state of the game
+     */
     public TreeNode(ChessBoard cb) {
+        this(cb, new NodePool());
+    }
+
+    /**
+     * Creates a root {@code TreeNode} searched with the default SearchSettings,
+     * throwing away anything in the NodePool
+     * @param cb the state of the game
+     * @param pool where the tree is stored
+     */
+    public TreeNode(ChessBoard cb, NodePool pool) {
+        this(cb, pool, new SearchSettings());
+    }
+
+    /**
+     * Creates a root {@code TreeNode}, throwing away anything in the NodePool
+     * @param cb the state of the game
+     * @param pool where the tree is stored
+     * @param settings how the tree is searched, which may be shared with other trees
+     */
+    public TreeNode(ChessBoard cb, NodePool pool, SearchSettings settings) {
+        this(pool, 0, cb, settings);
+        pool.reset();
+        pool.setHash(0, cb.getHash());
         this.cb = cb;
-        nActions = cb.numOfLegalMoves();
     }
 
     /**
-     * Searches through the Monte Carlo tree.
+     * Creates a handle on a node of a pool
+     * @param pool where the tree is stored
+     * @param index which node of the pool
+     * @param rootBoard the state of the game at the root of the pool
+     * @param settings how the tree is searched
      */
-    public void selectAction() {
-        nActions = cb.numOfLegalMoves();
-        System.out.println("SELECTING");
-        List<TreeNode> visited = new LinkedList<>();
-        TreeNode cur = this;
-        visited.add(this);
-        while (!cur.isLeaf()) {
-            cur = cur.select();
-            // System.out.println("Adding: " + cur);
-            visited.add(cur);
+    private TreeNode(NodePool pool, int index, ChessBoard rootBoard, SearchSettings settings) {
+        if(settings == null) throw new IllegalArgumentException("No search settings");
+        this.pool = pool;
+        this.index = index;
+        this.rootBoard = rootBoard;
+        this.settings = settings;
+    }
+
+    /**
+     * Searches through the Monte Carlo tree.<br>
+     * Many threads may search the same tree at once: every node
+     * passed through is given a virtual loss until the result is backed up.
+     * @return how many nodes were added to the tree
+     */
+    public int selectAction() {
+        return selectAction(null);
+    }
+
+    /**
+     * Searches through the Monte Carlo tree, recording how it went<br>
+     * The clock is read between the phases only when there are metrics to record into.
+     * @param metrics where the iteration is recorded, or null
+     * @return how many nodes were added to the tree
+     */
+    public int selectAction(SearchMetrics metrics) {
+        if(Trace.LEVEL >= Trace.TRACE) Trace.log(Trace.TRACE, "SELECTING");
+        long t0 = (metrics == null)?0:System.nanoTime(), t1 = 0, t2 = 0, t3 = 0;
+        SearchSettings settings = this.settings;
+        SelectionPolicy policy = settings.getSelectionPolicy();
+        boolean widening = settings.getWideningC() > 0;
+        Scratch s = SCRATCH.get();
+        BitBoard board = s.board;
+        board.copyFrom(getBoard().getBitBoard());
+        boolean rootWhite = board.isWhiteToMove();
+        long time = pool.tick();
+        int cur = index;
+        int length = s.push(0, cur);
+        pool.add(cur, 1, virtualLoss(rootWhite, 0));
+        pool.touch(cur, time);
+        while (pool.getChildCount(cur) != 0) {
+            cur = policy.select(pool, cur, widen(cur), (board.isWhiteToMove())?1:-1);
+            board.makeMove(pool.getMove(cur));
+            pool.add(cur, 1, virtualLoss(rootWhite, length));
+            length = s.push(length, cur);
+            pool.touch(cur, time);
         }
-        System.out.println("EXPANDING");
-        cur.expand();
-        System.out.println("SELECTING");
-        TreeNode newNode = cur.select();
-        newNode.cb.setCurrentPlayer(!cur.cb.currentPlayer());
-        visited.add(newNode);
-        System.out.println("SIMULATING");
-        double value = simulate(newNode);
-        System.out.println("UPDATING");
-        for(TreeNode node : visited) {
+        if(metrics != null) t1 = System.nanoTime();
+        int added = 0, hits = 0, plies = 0;
+        boolean played = true;
+        double value;
+        BatchEvaluator evaluator = settings.getLeafEvaluator();
+        if(evaluator != null) {
+            if(Trace.LEVEL >= Trace.TRACE) Trace.log(Trace.TRACE, "EVALUATING");
+            int n = MoveGenerator.generateLegal(board, s.moves, 0);
+            value = Playout.result(board, n);
+            // a finished game is never expanded, so it is scored again each time it is reached
+            played = Double.isNaN(value);
+            if(played) {
+                if(widening) MoveOrdering.sort(board, s.moves, s.scores, 0, n);
+                s.leaf.set(board, s.moves, n);
+                evaluator.evaluate(s.leaf);
+                value = s.leaf.getValue();
+                if(metrics != null) t2 = System.nanoTime();
+                if(pool.expand(cur, s.moves, hashChildren(board, s, n), s.leaf.getPriors(), n)) {
+                    added = n;
+                    hits = s.hits;
+                }
+            }
+            if(metrics != null) {
+                t3 = System.nanoTime();
+                if(!played) t2 = t3;
+            }
+        } else {
+            if(Trace.LEVEL >= Trace.TRACE) Trace.log(Trace.TRACE, "EXPANDING");
+            if(!pool.isExpanded(cur)) {
+                int n = MoveGenerator.generateLegal(board, s.moves, 0);
+                if(widening) MoveOrdering.sort(board, s.moves, s.scores, 0, n);
+                if(pool.expand(cur, s.moves, hashChildren(board, s, n), null, n)) {
+                    added = n;
+                    hits = s.hits;
+                }
+            }
+            // a finished game has no children to select,
+            // and neither does a node another thread is expanding
+            if(pool.getChildCount(cur) != 0) {
+                if(Trace.LEVEL >= Trace.TRACE) Trace.log(Trace.TRACE, "SELECTING");
+                cur = policy.select(pool, cur, widen(cur), (board.isWhiteToMove())?1:-1);
+                board.makeMove(pool.getMove(cur));
+                pool.add(cur, 1, virtualLoss(rootWhite, length));
+                length = s.push(length, cur);
+                pool.touch(cur, time);
+            }
+            if(metrics != null) t2 = System.nanoTime();
+            if(Trace.LEVEL >= Trace.TRACE) Trace.log(Trace.TRACE, "SIMULATING");
+            s.playout.setMaxPlies(settings.getPlayoutDepth());
+            value = s.playout.play(board);
+            plies = s.playout.getPlies();
+            if(metrics != null) t3 = System.nanoTime();
+        }
+        if(Trace.LEVEL >= Trace.TRACE) Trace.log(Trace.TRACE, "UPDATING");
+        for(int i = 0; i < length; i++) {
             // would need extra logic for n-player game
-            // System.out.println(node.toString());
-            node.updateStats(value);
+            pool.add(s.path[i], 0, value - virtualLoss(rootWhite, i));
+            pool.addSquare(s.path[i], value * value);
         }
+        if(policy.usesAmaf()) updateAmaf(s, length, plies, value);
+        if(metrics != null) {
+            // with an evaluator, the evaluation comes before the expansion and counts as the simulation
+            long expanding = (evaluator == null)?t2 - t1:t3 - t2, simulating = (evaluator == null)?t3 - t2:t2 - t1;
+            metrics.recordIteration(length - 1, added, hits, played, plies,
+                    t1 - t0, expanding, simulating, System.nanoTime() - t3);
+        }
+        return added;
     }
 
     /**
-     * Creates new {@code TreeNode}s to match all playable branches of the game.
+     * Determines how many children of a node may be chosen from<br>
+     * With progressive widening, that is C times the visits to the power of alpha,
+     * rounded up; children are sorted by MoveOrdering when expanded, so the likeliest come first.
+     * @param node the node, which must have children
+     * @return how many of the node's first children may be chosen from
      */
-    public void expand() {
-        children = new TreeNode[nActions];
-        cb.printBoard();
-        for (int i=0; i<nActions; i++) {
-            ChessBoard temp = new ChessBoard(cb);
-            temp.movePiece(i);
-            temp.recalculateMoves();
-            temp.printBoard();
-            children[i] = new TreeNode(temp);
-        }
+    private int widen(int node) {
+        int count = pool.getChildCount(node);
+        double c = settings.getWideningC();
+        if(c <= 0) return count;
+        double allowed = Math.ceil(c * Math.pow(pool.getVisits(node), settings.getWideningAlpha()));
+        return (allowed >= count)?count:Math.max(1, (int)allowed);
     }
 
     /**
-     * Selects a {@code TreeNode} to start searching from
-     * @return a {@code TreeNode}
+     * Returns the virtual loss of a node on the path searched,
+     * which is a loss for whoever played the move to it
+     * @param rootWhite whether white is to move at the first node of the path
+     * @param depth how far down the path the node is
+     * @return the virtual loss, from white's side
      */
-    private TreeNode select() {
-        TreeNode selected = null;
-        double bestValue = Double.MIN_VALUE;
-        for (TreeNode c : children) {
-            double uctValue =
-                    c.totValue / (c.nVisits + EPSILON) +
-                            Math.sqrt(Math.log(nVisits+1) / (c.nVisits + EPSILON)) +
-                            r.nextDouble() * EPSILON;
-            // small random number to break ties randomly in unexpanded nodes
-            // System.out.println("UCT value = " + uctValue);
-            if (uctValue > bestValue) {
-                selected = c;
-                bestValue = uctValue;
+    private static double virtualLoss(boolean rootWhite, int depth) {
+        return (((depth & 1) == 1) == rootWhite)?VIRTUAL_LOSS:-VIRTUAL_LOSS;
+    }
+
+    /**
+     * Gives an AMAF visit to each child, of each node on the path searched,
+     * whose move was played later on by the same side
+     * @param s the scratch space holding the path and the simulation
+     * @param length how many nodes are on the path
+     * @param plies how many half moves the simulation played
+     * @param value the result of the simulation
+     */
+    private void updateAmaf(Scratch s, int length, int plies, double value) {
+        // the moves after node i start at ply i: first the rest of the path, then the simulation
+        boolean[] played = s.played;
+        for(int k = 0; k < plies; k++) {
+            played[amafKey(length - 1 + k, s.playout.getPlayed(k))] = true;
+        }
+        for(int i = length - 1; i >= 0; i--) {
+            if(i < length - 1) played[amafKey(i, pool.getMove(s.path[i + 1]))] = true;
+            int first = pool.getFirstChild(s.path[i]), count = pool.getChildCount(s.path[i]);
+            for(int c = first; c < first + count; c++) {
+                if(played[amafKey(i, pool.getMove(c))]) pool.addAmaf(c, value);
             }
         }
-        // System.out.println("Returning: " + selected);
-        return selected;
+        for(int k = 0; k < plies; k++) {
+            played[amafKey(length - 1 + k, s.playout.getPlayed(k))] = false;
+        }
+        for(int i = 0; i < length - 1; i++) {
+            played[amafKey(i, pool.getMove(s.path[i + 1]))] = false;
+        }
+    }
+
+    /**
+     * Returns where a move played at a ply is marked in Scratch.played<br>
+     * Moves are told apart only by their squares and by which side played them
+     * @param ply the ply the move was played at
+     * @param move the move, encoded as in Move
+     * @return the index into Scratch.played
+     */
+    private static int amafKey(int ply, int move) {
+        return (ply & 1) << 12 | Move.to(move) << 6 | Move.from(move);
+    }
+
+    /**
+     * Creates the children of this {@code TreeNode}, one for each legal move.<br>
+     * If another thread expands this {@code TreeNode} first, its children are kept.
+     * @return whether the children created here were kept
+     */
+    public boolean expand() {
+        if(pool.isExpanded(index)) return false;
+        Scratch s = SCRATCH.get();
+        BitBoard board = s.board;
+        board.copyFrom(getBoard().getBitBoard());
+        int n = MoveGenerator.generateLegal(board, s.moves, 0);
+        if(settings.getWideningC() > 0) MoveOrdering.sort(board, s.moves, s.scores, 0, n);
+        return pool.expand(index, s.moves, hashChildren(board, s, n), null, n);
+    }
+
+    /**
+     * Finds the Zobrist hash of the position after each move in Scratch.moves,
+     * if the pool shares statistics between transpositions<br>
+     * Counts into Scratch.hits the positions the table already has statistics for.
+     * @param board the position the moves are played from, left as it was
+     * @param s the scratch space holding the moves
+     * @param n how many moves there are
+     * @return the hashes, or null if the pool does not need them
+     */
+    private long[] hashChildren(BitBoard board, Scratch s, int n) {
+        s.hits = 0;
+        TranspositionTable table = pool.getTranspositionTable();
+        if(table == null) return null;
+        for(int i = 0; i < n; i++) {
+            board.makeMove(s.moves[i]);
+            s.hashes[i] = board.getHash();
+            board.unmakeMove();
+            if(table.getVisits(s.hashes[i]) != 0) s.hits++;
+        }
+        return s.hashes;
     }
 
     /**
@@ -126,7 +318,7 @@ public class TreeNode {
      * @return whether this {@code TreeNode} is a leaf
      */
     public boolean isLeaf() {
-        return children == null;
+        return !pool.isExpanded(index);
     }
 
     /**
@@ -138,23 +330,10 @@ public class TreeNode {
         // ultimately a roll out will end in some value
         // assume for now that it ends in a win or a loss
         // and just return this at random
-        // Use a NN to minimax through later
-        ChessBoard copy = new ChessBoard(tn.cb);
-        copy.printBoard();
-        copy.setCurrentPlayer(!copy.currentPlayer());
-        while(!(copy.checkMated(copy.currentPlayer()) || 
-                copy.isDraw(copy.currentPlayer()))) {
-            boolean isWhite = copy.currentPlayer();
-            copy.recalculateMoves();
-            int random = r.nextInt(copy.numOfLegalMoves());
-            copy.movePiece(random);
-            copy.setCurrentPlayer(!isWhite);
-            copy.printBoard();
-            System.out.println();
-            System.out.println("Checkmate: " + copy.checkMated(copy.currentPlayer()) + 
-                    " \tDraw: " + copy.isDraw(copy.currentPlayer()));
-        }
-        return (copy.checkMated(true))? -1 : (copy.checkMated(false) ? 1 : 0);
+        // see SearchSettings.setLeafEvaluator to evaluate leaves with a network instead
+        Playout playout = SCRATCH.get().playout;
+        playout.setMaxPlies(settings.getPlayoutDepth());
+        return playout.play(tn.getBoard().getBitBoard());
     }
 
     /**
@@ -162,8 +341,111 @@ public class TreeNode {
      * @param value the value to change this {@code TreeNode}.
      */
     public void updateStats(double value) {
-        nVisits++;
-        totValue += value;
+        pool.add(index, 1, value);
+    }
+
+    /**
+     * Returns the number of total visits
+     * @return the number of total visits
+     */
+    public int getVisits() {
+        return pool.getVisits(index);
+    }
+
+    /**
+     * Returns the total value
+     * @return the total value
+     */
+    public double getTotalValue() {
+        return pool.getValueSum(index);
+    }
+
+    /**
+     * Returns the move that led to this {@code TreeNode}
+     * @return the move, encoded as in Move, or Move.NONE for the root
+     */
+    public int getMove() {
+        return pool.getMove(index);
+    }
+
+    /**
+     * Returns one of this {@code TreeNode}'s children<br>
+     * Child i is the position after the ChessBoard's legal move i,
+     * unless progressive widening sorted the children; getMove() tells which
+     * @param i which child
+     * @return the child
+     */
+    public TreeNode getChild(int i) {
+        if(i < 0 || i >= arity()) throw new IndexOutOfBoundsException(i + "");
+        return new TreeNode(pool, pool.getFirstChild(index) + i, rootBoard, settings);
+    }
+
+    /**
+     * Finds the {@code TreeNode} a move leads to, so that its subtree can be searched again<br>
+     * Only that subtree is kept in the NodePool, so every other {@code TreeNode}
+     * of the pool is no longer valid afterwards. If this {@code TreeNode} was never
+     * expanded, the pool is started over from the position after the move.
+     * @param move the move played, encoded as in Move; only the squares and the promotion are compared
+     * @return the {@code TreeNode} after the move
+     */
+    public TreeNode advance(int move) {
+        ChessBoard board = getBoard();
+        int i = board.indexOfLegalMove(move);
+        if(i < 0) throw new IllegalArgumentException("Illegal move: " + Move.toString(move));
+        int legal = board.getLegalMove(i);
+        ChessBoard temp = new ChessBoard(board);
+        temp.playMove(legal);
+        int first = pool.getFirstChild(index);
+        for(int child = first; child < first + arity(); child++) {
+            if(pool.getMove(child) == legal) {
+                pool.retain(child);
+                TreeNode root = new TreeNode(pool, 0, temp, settings);
+                root.cb = temp;
+                return root;
+            }
+        }
+        return new TreeNode(temp, pool, settings);
+    }
+
+    /**
+     * Returns this node's state of the game<br>
+     * Apart from the root, the board is made the first time it is asked for
+     * @return this node's state of the game
+     */
+    public ChessBoard getBoard() {
+        ChessBoard board = cb;
+        if(board == null) {
+            // the moves down from the root, in reverse
+            int[] moves = new int[16];
+            int n = 0;
+            for(int node = index; node != 0; node = pool.getParent(node)) {
+                if(n == moves.length) moves = Arrays.copyOf(moves, n * 2);
+                moves[n++] = pool.getMove(node);
+            }
+            board = new ChessBoard(rootBoard);
+            while(n > 0) {
+                board.playMove(moves[--n]);
+            }
+            cb = board;
+        }
+        return board;
+    }
+
+    /**
+     * Returns how this tree is searched<br>
+     * Changing the settings changes them for every {@code TreeNode} of the tree
+     * @return the settings of the tree
+     */
+    public SearchSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Returns the NodePool this tree is stored in
+     * @return the NodePool this tree is stored in
+     */
+    public NodePool getPool() {
+        return pool;
     }
 
     /**
@@ -172,6 +454,68 @@ public class TreeNode {
      * @return how many children this {@code TreeNode} has
      */
     public int arity() {
-        return children == null ? 0 : children.length;
+        return pool.getChildCount(index);
+    }
+
+    /**
+     * What one thread needs to search, kept so that it is only allocated once
+     */
+    private static class Scratch {
+        /**
+         * The board the moves are played on
+         */
+        final BitBoard board = new BitBoard();
+
+        /**
+         * The buffer the legal moves are generated into
+         */
+        final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        /**
+         * The scores of the moves, for sorting them
+         */
+        final int[] scores = new int[MoveGenerator.MAX_MOVES];
+
+        /**
+         * The hashes of the positions after the moves
+         */
+        final long[] hashes = new long[MoveGenerator.MAX_MOVES];
+
+        /**
+         * How many of the hashes were already in the transposition table
+         */
+        int hits;
+
+        /**
+         * The nodes passed through
+         */
+        int[] path = new int[64];
+
+        /**
+         * Which moves were played later on, by each side, for the AMAF statistics
+         */
+        final boolean[] played = new boolean[2 << 12];
+
+        /**
+         * Handed to the leaf evaluator
+         */
+        final Leaf leaf = new Leaf();
+
+        /**
+         * Plays the simulations
+         */
+        final Playout playout = new Playout();
+
+        /**
+         * Adds a node to the path
+         * @param length how many nodes are on the path
+         * @param node the node
+         * @return how many nodes are on the path now
+         */
+        int push(int length, int node) {
+            if(length == path.length) path = Arrays.copyOf(path, length * 2);
+            path[length] = node;
+            return length + 1;
+        }
     }
 }
\ No newline at end of file
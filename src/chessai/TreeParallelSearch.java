@@ -0,0 +1,85 @@
+package chessai;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches one Monte Carlo tree with many threads at once<br>
+ * Every worker descends the same tree with TreeNode.selectAction().
+ * The tree needs no locks: statistics are updated atomically,
+ * virtual losses keep the workers on different branches,
+ * and children are set with a compare-and-set.
+ * @author Jed Wang
+ */
+public class TreeParallelSearch {
+    /**
+     * The root of the tree being searched
+     */
+    private final TreeNode root;
+
+    /**
+     * How many threads search the tree
+     */
+    private final int threads;
+
+    /**
+     * Creates a search using one thread per processor
+     * @param root the root of the tree to search
+     */
+    public TreeParallelSearch(TreeNode root) {
+        this(root, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a search
+     * @param root the root of the tree to search
+     * @param threads how many threads search the tree
+     */
+    public TreeParallelSearch(TreeNode root, int threads) {
+        if(threads <= 0) throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        this.root = root;
+        this.threads = threads;
+    }
+
+    /**
+     * Searches the tree, returning once every iteration is done
+     * @param iterations how many times selectAction() is called in total
+     */
+    public void search(int iterations) {
+        AtomicInteger remaining = new AtomicInteger(iterations);
+        Thread[] workers = new Thread[threads];
+        for(int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(() -> {
+                while(remaining.getAndDecrement() > 0) {
+                    root.selectAction();
+                }
+            }, "mcts-worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        try {
+            for(Thread worker : workers) {
+                worker.join();
+            }
+        } catch(InterruptedException ie) {
+            // stop the workers early, and let the caller know
+            remaining.set(0);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the root of the tree being searched
+     * @return the root of the tree being searched
+     */
+    public TreeNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns how many threads search the tree
+     * @return how many threads search the tree
+     */
+    public int getThreads() {
+        return threads;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package chessai;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects by UCB1-Tuned, which explores children whose values vary
+ * less than others more sparingly<br>
+ * The exploration term of UCT is scaled by an upper bound on the variance
+ * of the child's values, which is at most 1 for values from -1 to 1.
+ * @author Jed Wang
+ */
+public class Ucb1TunedPolicy implements SelectionPolicy {
+    /**
+     * The exploration constant used when none is given
+     */
+    public static final double DEFAULT_C = 1;
+
+    /**
+     * The exploration constant
+     */
+    private final double c;
+
+    /**
+     * Default constructor.
+     */
+    public Ucb1TunedPolicy() {
+        this(DEFAULT_C);
+    }
+
+    /**
+     * Creates a UCB1-Tuned policy
+     * @param c the exploration constant; higher explores more
+     */
+    public Ucb1TunedPolicy(double c) {
+        if(!(c >= 0)) throw new IllegalArgumentException("Invalid exploration constant: " + c);
+        this.c = c;
+    }
+
+    @Override
+    public int select(NodePool pool, int node, int count, double sign) {
+        int selected = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        double logVisits = Math.log(pool.getVisits(node) + 1);
+        int first = pool.getFirstChild(node);
+        for (int child = first; child < first + count; child++) {
+            double cVisits = pool.getVisits(child) + TreeNode.EPSILON;
+            double mean = pool.getValueSum(child) / cVisits;
+            double variance = pool.getSquareSum(child) / cVisits - mean * mean
+                    + Math.sqrt(2 * logVisits / cVisits);
+            // virtual losses still being taken back can push the estimate below 0
+            double value = sign * mean
+                    + c * Math.sqrt(logVisits / cVisits * Math.min(1, Math.max(0, variance)))
+                    + ThreadLocalRandom.current().nextDouble() * TreeNode.EPSILON;
+            if (value > bestValue) {
+                selected = child;
+                bestValue = value;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the exploration constant
+     * @return the exploration constant
+     */
+    public double getC() {
+        return c;
+    }
+}
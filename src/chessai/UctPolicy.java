@@ -0,0 +1,64 @@
+package chessai;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects by UCT: the mean value plus C times the square root of
+ * the log of the parent's visits over the child's visits
+ * @author Jed Wang
+ */
+public class UctPolicy implements SelectionPolicy {
+    /**
+     * The exploration constant used when none is given
+     */
+    public static final double DEFAULT_C = 1;
+
+    /**
+     * The exploration constant
+     */
+    private final double c;
+
+    /**
+     * Default constructor.
+     */
+    public UctPolicy() {
+        this(DEFAULT_C);
+    }
+
+    /**
+     * Creates a UCT policy
+     * @param c the exploration constant; higher explores more
+     */
+    public UctPolicy(double c) {
+        if(!(c >= 0)) throw new IllegalArgumentException("Invalid exploration constant: " + c);
+        this.c = c;
+    }
+
+    @Override
+    public int select(NodePool pool, int node, int count, double sign) {
+        int selected = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        double logVisits = Math.log(pool.getVisits(node) + 1);
+        int first = pool.getFirstChild(node);
+        for (int child = first; child < first + count; child++) {
+            double cVisits = pool.getVisits(child) + TreeNode.EPSILON;
+            double uctValue = sign * pool.getValueSum(child) / cVisits
+                    + c * Math.sqrt(logVisits / cVisits)
+                    // small random number to break ties randomly in unexpanded nodes
+                    + ThreadLocalRandom.current().nextDouble() * TreeNode.EPSILON;
+            if (uctValue > bestValue) {
+                selected = child;
+                bestValue = uctValue;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the exploration constant
+     * @return the exploration constant
+     */
+    public double getC() {
+        return c;
+    }
+}